@@ -0,0 +1,137 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaBenchmarkPositions class builds the board states that
+ * the benchmarks are run on. For each board geometry, there is an
+ * opening, a middlegame and an endgame board state, with 10%, 35% and
+ * 70% of the cells filled. The board states are made by playing random
+ * moves near the pieces already on the board, skipping any move that
+ * would end the game or leave either player a row to complete on the
+ * next move. The board states are therefore quiet, and have to be
+ * searched in full instead of being decided by a single forced move,
+ * as in board states from real games. A fixed seed is used for each board state, so
+ * every run of the benchmarks uses the same board states.
+ */
+package teameureka;
+
+import connectK.BoardModel;
+
+import java.awt.Point;
+import java.util.Random;
+
+public class TeamEurekaBenchmarkPositions {
+	public static final int ATTEMPTS = 1000; // Most games played to reach a board state with no winner
+
+	/**
+	 * This method builds the board state for the given board geometry and
+	 * game phase. The geometry is written as width x height, followed by
+	 * k and the value of K, and by g if gravity is enabled, such as 7x6k4g
+	 * or 15x15k5. The phase is opening, middlegame or endgame.
+	 *
+	 * @param geometry board geometry
+	 * @param phase phase of the game
+	 * @return the board state
+	 */
+	public static BoardModel create(String geometry, String phase) {
+		String[] size = geometry.replace("g", "").split("[xk]");
+		int width = Integer.parseInt(size[0]);
+		int height = Integer.parseInt(size[1]);
+		int k = Integer.parseInt(size[2]);
+		boolean gravity = geometry.endsWith("g");
+		int pieces;
+		switch (phase) {
+		case "opening":
+			pieces = width * height / 10;
+			break;
+		case "middlegame":
+			pieces = width * height * 35 / 100;
+			break;
+		case "endgame":
+			pieces = width * height * 70 / 100;
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown phase: " + phase);
+		}
+		Random random = new Random((geometry + phase).hashCode());
+		for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+			BoardModel state = play(BoardModel.newBoard(width, height, k, gravity), pieces, random);
+			if (state != null) {
+				return state;
+			}
+		}
+		throw new IllegalStateException("No board state found for " + geometry + " " + phase);
+	}
+
+	/**
+	 * This method plays the given number of random moves, starting with
+	 * player 1. Each move is chosen from the moves generated next to the
+	 * pieces on the board. Moves that would complete a row, or leave
+	 * either player a cell in which to complete one, are not played.
+	 *
+	 * @param state empty board state
+	 * @param pieces number of moves to play
+	 * @param random source of random moves
+	 * @return the board state, or null if every move would have ended the game
+	 */
+	public static BoardModel play(BoardModel state, int pieces, Random random) {
+		TeamEurekaBitboard position = new TeamEurekaBitboard(state);
+		position.setRadius(1);
+		int[] moves = new int[position.getSpacesLeft()];
+		int[] threats = new int[position.getSpacesLeft()];
+		TeamEurekaEvaluator evaluator = new TeamEurekaEvaluator(1);
+		for (int i = 0; i < pieces; i++) {
+			byte player = (byte) (i % 2 + 1);
+			int n = position.generateMoves(moves);
+			int move = -1;
+			while (n > 0 && move == -1) {
+				int j = random.nextInt(n);
+				position.makeMove(moves[j], player);
+				if (position.getWinner() == 0 && evaluator.findThreatCells(position, 1, threats) == 0
+						&& evaluator.findThreatCells(position, 2, threats) == 0) {
+					move = moves[j];
+				}
+				position.undoMove();
+				moves[j] = moves[--n];
+			}
+			if (move == -1) {
+				return null;
+			}
+			position.makeMove(move, player);
+			Point point = position.toPoint(move);
+			state = state.placePiece(point, player);
+		}
+		return state;
+	}
+
+	/**
+	 * This method returns the player whose turn it is on the given board
+	 * state. Player 1 moves first.
+	 *
+	 * @param state board state
+	 * @return the player to move (1 or 2)
+	 */
+	public static byte getPlayerToMove(BoardModel state) {
+		int pieces = state.getWidth() * state.getHeight() - state.spacesLeft;
+		return (byte) (pieces % 2 + 1);
+	}
+}
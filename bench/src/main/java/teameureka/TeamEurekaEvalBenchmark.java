@@ -0,0 +1,98 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaEvalBenchmark class measures the throughput of the
+ * heuristic evaluation function on the benchmark board states. The full
+ * evaluation scans every K-length row of the board, and is the one used
+ * by the game tree search. The incremental evaluation plays a move
+ * through the evaluator, reads the utility value, and takes the move
+ * back, which is what the depth-first search does at each leaf.
+ */
+package teameureka;
+
+import connectK.BoardModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TeamEurekaEvalBenchmark {
+	@Param({"7x6k4g", "9x9k5", "15x15k5"})
+	public String geometry; // Board geometry of the board state
+	@Param({"opening", "middlegame", "endgame"})
+	public String phase; // Phase of the game of the board state
+	private TeamEurekaBitboard position; // Board state being evaluated
+	private TeamEurekaEvaluator fullEvaluator; // Evaluator used for full evaluations
+	private TeamEurekaEvaluator evaluator; // Evaluator tracking the board state incrementally
+	private byte player; // Player to move on the board state
+	private int lastPlayer; // Player that made the last move on the board state
+	private int[] moves; // Moves played by the incremental evaluation
+	private int numMoves; // Number of moves played by the incremental evaluation
+	private int nextMove; // Index of the next move played by the incremental evaluation
+
+	@Setup
+	public void setup() {
+		BoardModel state = TeamEurekaBenchmarkPositions.create(geometry, phase);
+		player = TeamEurekaBenchmarkPositions.getPlayerToMove(state);
+		lastPlayer = player == 1 ? 2 : 1;
+		position = new TeamEurekaBitboard(state);
+		position.setRadius(TeamEurekaBitboard.getDefaultRadius(state.getWidth() * state.getHeight()));
+		moves = new int[position.getSpacesLeft()];
+		numMoves = position.generateMoves(moves);
+		nextMove = 0;
+		fullEvaluator = new TeamEurekaEvaluator(player);
+		evaluator = new TeamEurekaEvaluator(player);
+		evaluator.reset(position);
+	}
+
+	@Benchmark
+	public int fullEval() {
+		return fullEvaluator.eval(position, lastPlayer);
+	}
+
+	@Benchmark
+	public int incrementalEval() {
+		int move = moves[nextMove];
+		nextMove = nextMove + 1 == numMoves ? 0 : nextMove + 1;
+		evaluator.makeMove(move, player);
+		int value = evaluator.eval(player);
+		evaluator.undoMove();
+		return value;
+	}
+}
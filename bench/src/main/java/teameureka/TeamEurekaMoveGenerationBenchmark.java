@@ -0,0 +1,129 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaMoveGenerationBenchmark class measures how fast nodes
+ * are generated on the benchmark board states. The generateMoves
+ * benchmark generates the moves of a single board state, including the
+ * removal of moves that are symmetric to other moves. The perft
+ * benchmark counts every board state up to a fixed depth by playing
+ * and taking back moves, and reports the number of nodes generated
+ * per second alongside the time for each count.
+ */
+package teameureka;
+
+import connectK.BoardModel;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TeamEurekaMoveGenerationBenchmark {
+	public static final int PERFT_DEPTH = 2; // Depth of the board states counted by perft
+	@Param({"7x6k4g", "9x9k5", "15x15k5"})
+	public String geometry; // Board geometry of the board state
+	@Param({"opening", "middlegame", "endgame"})
+	public String phase; // Phase of the game of the board state
+	private TeamEurekaBitboard position; // Board state that moves are played on
+	private byte player; // Player to move on the board state
+	private int[][] moveLists; // List of moves for each ply
+
+	/**
+	 * The Nodes class holds the number of nodes generated by perft, which
+	 * JMH reports as a rate next to the score of the benchmark.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Nodes {
+		public long nodes; // Number of nodes generated during the iteration
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			nodes = 0;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		BoardModel state = TeamEurekaBenchmarkPositions.create(geometry, phase);
+		player = TeamEurekaBenchmarkPositions.getPlayerToMove(state);
+		position = new TeamEurekaBitboard(state);
+		position.setRadius(TeamEurekaBitboard.getDefaultRadius(state.getWidth() * state.getHeight()));
+		moveLists = new int[PERFT_DEPTH + 1][position.getSpacesLeft()];
+	}
+
+	@Benchmark
+	public int generateMoves() {
+		return position.generateMoves(moveLists[0]);
+	}
+
+	@Benchmark
+	public long perft(Nodes counter) {
+		long nodes = countNodes(0, PERFT_DEPTH, player);
+		counter.nodes += nodes;
+		return nodes;
+	}
+
+	/**
+	 * This method counts the board states below the current board state,
+	 * down to the specified depth. Board states with a winner are counted
+	 * but not searched below.
+	 *
+	 * @param ply distance from the board state the count started on
+	 * @param depth depth of the subtree to be counted
+	 * @param player player to move on the current board state
+	 * @return the number of board states in the subtree
+	 */
+	public long countNodes(int ply, int depth, byte player) {
+		if (depth == 0 || position.getWinner() != 0 || !position.hasMovesLeft()) {
+			return 1;
+		}
+		long nodes = 1;
+		int[] moves = moveLists[ply];
+		int n = position.generateMoves(moves);
+		byte next = (byte) (player == 1 ? 2 : 1);
+		for (int i = 0; i < n; i++) {
+			position.makeMove(moves[i], player);
+			nodes += countNodes(ply + 1, depth - 1, next);
+			position.undoMove();
+		}
+		return nodes;
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaSearchBenchmark class measures the time taken by the
+ * depth-first search to search the benchmark board states to a fixed
+ * depth. The alphaBeta benchmark searches the depth limit once, with
+ * the full alpha-beta window, and the iterativeDeepening benchmark
+ * searches every depth limit up to it, as getMove does. Each search
+ * starts with an empty transposition table and no move ordering
+ * information, so that every invocation does the same work. The
+ * allocation reported by the gc profiler includes that of creating the
+ * TeamEurekaSearch object before each invocation, which is mostly its
+ * move lists.
+ */
+package teameureka;
+
+import connectK.BoardModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TeamEurekaSearchBenchmark {
+	@Param({"7x6k4g", "9x9k5", "15x15k5"})
+	public String geometry; // Board geometry of the board state
+	@Param({"opening", "middlegame", "endgame"})
+	public String phase; // Phase of the game of the board state
+	@Param({"2", "4"})
+	public int depth; // Depth limit of the search
+	private BoardModel state; // Board state being searched
+	private byte player; // Player to move on the board state
+	private TeamEurekaEvaluator evaluator; // Heuristic evaluation function
+	private TeamEurekaTranspositionTable table; // Results of previously searched board states
+	private TeamEurekaMoveOrdering ordering; // Killer moves and history scores
+	private TeamEurekaSearch search; // Search of the board state for the next invocation
+
+	@Setup
+	public void setup() {
+		state = TeamEurekaBenchmarkPositions.create(geometry, phase);
+		player = TeamEurekaBenchmarkPositions.getPlayerToMove(state);
+		evaluator = new TeamEurekaEvaluator(player);
+		table = new TeamEurekaTranspositionTable(16);
+		ordering = new TeamEurekaMoveOrdering(state.getWidth() * state.getHeight() + 1, state.getWidth() * state.getHeight());
+	}
+
+	@Setup(Level.Invocation)
+	public void newSearch() {
+		table.clear();
+		ordering.clear();
+		TeamEurekaBitboard position = new TeamEurekaBitboard(state);
+		position.setRadius(TeamEurekaBitboard.getDefaultRadius(state.getWidth() * state.getHeight()));
+		search = new TeamEurekaSearch(position, evaluator, table, ordering, player);
+		search.setTimer(new TeamEurekaTimer(Integer.MAX_VALUE), 0);
+	}
+
+	@Benchmark
+	public int alphaBeta() {
+		return search.searchRoot(depth, Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+
+	@Benchmark
+	public int iterativeDeepening() {
+		int move = -1;
+		for (int limit = 1; limit <= depth; limit++) {
+			move = search.search(limit);
+		}
+		return move;
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaTreeSearchBenchmark class measures the time taken by
+ * the game tree search of TeamEurekaAI to search the benchmark board
+ * states to a fixed depth. Each invocation builds the game tree one
+ * depth limit at a time with extendTree, as getTreeMove does, and then
+ * runs minimax or alpha-beta search over it. Since the whole tree is
+ * kept in memory, the depth limits are smaller than those of the
+ * depth-first search, and the allocation rate reported by the gc
+ * profiler is mostly the cost of the tree itself.
+ */
+package teameureka;
+
+import connectK.BoardModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TeamEurekaTreeSearchBenchmark {
+	@Param({"7x6k4g", "9x9k5", "15x15k5"})
+	public String geometry; // Board geometry of the board state
+	@Param({"opening", "middlegame", "endgame"})
+	public String phase; // Phase of the game of the board state
+	@Param({"1", "2"})
+	public int depth; // Depth limit of the search
+	private BoardModel state; // Board state being searched
+	private TeamEurekaAI ai; // AI whose game tree search is measured
+
+	@Setup
+	public void setup() {
+		state = TeamEurekaBenchmarkPositions.create(geometry, phase);
+		ai = new TeamEurekaAI(TeamEurekaBenchmarkPositions.getPlayerToMove(state), state);
+	}
+
+	@Benchmark
+	public TeamEurekaStateNode minimax() {
+		TeamEurekaTimer timer = new TeamEurekaTimer(Integer.MAX_VALUE);
+		TeamEurekaStateNode gameTree = newTree();
+		for (int limit = 1; limit <= depth; limit++) {
+			ai.extendTree(gameTree, limit, true, timer);
+			ai.minimax(gameTree, limit, true, timer);
+		}
+		return gameTree;
+	}
+
+	@Benchmark
+	public TeamEurekaStateNode alphaBeta() {
+		TeamEurekaTimer timer = new TeamEurekaTimer(Integer.MAX_VALUE);
+		TeamEurekaStateNode gameTree = newTree();
+		for (int limit = 1; limit <= depth; limit++) {
+			ai.extendTree(gameTree, limit, true, timer);
+			ai.alphaBeta(gameTree, limit, Integer.MIN_VALUE, Integer.MAX_VALUE, true, timer);
+		}
+		return gameTree;
+	}
+
+	/**
+	 * This method creates the root of a new game tree for the board
+	 * state, in the same manner as getTreeMove.
+	 *
+	 * @return the root node of the game tree
+	 */
+	public TeamEurekaStateNode newTree() {
+		TeamEurekaBitboard position = new TeamEurekaBitboard(state);
+		position.setRadius(ai.radius);
+		return new TeamEurekaStateNode(position, 0, ai.opponentTurn);
+	}
+}
@@ -25,21 +25,78 @@ import connectK.CKPlayer;
 import connectK.BoardModel;
 
 import java.awt.Point;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.Arrays;
 
 public class TeamEurekaAI extends CKPlayer {
 	int thisPlayerTurn; // Player number for TeamEurekaAI (1 or 2)
 	int opponentTurn; // Player number for other player (1 or 2)
+	boolean treeSearch; // Indicates if getMove builds a game tree instead of searching depth-first
+	boolean monteCarlo; // Indicates if getMove uses Monte Carlo tree search instead of alpha-beta search
+	TeamEurekaMonteCarloTree monteCarloTree; // Node store of the Monte Carlo tree search, or null until it is first used
+	TeamEurekaMaxNodeComparator maxNodeComparator = new TeamEurekaMaxNodeComparator(); // Orders children of max nodes in the game tree
+	TeamEurekaMinNodeComparator minNodeComparator = new TeamEurekaMinNodeComparator(); // Orders children of min nodes in the game tree
+	TeamEurekaEvaluator evaluator; // Heuristic evaluation function
+	TeamEurekaGeometry geometry; // Tables for the geometry of the board
+	TeamEurekaTranspositionTable table; // Results of previously searched board states
+	TeamEurekaTimeManager timeManager; // Decides how much time is spent on each move
+	TeamEurekaMoveOrdering ordering; // Killer moves and history scores, kept from move to move
+	long previousKey; // Zobrist key of the board state after the last move chosen, or 0
+	int searchThreads; // Number of threads searching in parallel, including the main thread
+	ExecutorService helperThreads; // Threads running helper searches
+	Future<?>[] helperFutures; // Results of the running helper searches
+	boolean ponder; // Indicates if the AI searches while the opponent is thinking
+	int radius; // Greatest distance from a piece of the moves searched, or 0 for the whole board
+	ExecutorService ponderThread; // Thread running the ponder search
+	Future<?> ponderFuture; // Result of the running ponder search, or null
+	TeamEurekaTimer ponderTimer; // Timer used to stop the ponder search
+	TeamEurekaOpeningBook book; // Moves for the first moves of the game, or null if there is no book
+	TeamEurekaTablebase tablebase; // Exact values of board states with few empty cells, or null if there is none
+	TeamEurekaTranspositionTable solverTable; // Results of the endgame solver, or null until it is first used
+	int solveThreshold; // Most empty cells for the endgame solver to be used
+	boolean proofSearch; // Indicates if proof-number search is run before the heuristic search
+	long proofNodes; // Most nodes searched by each proof-number search
+	TeamEurekaProofNumberSearch proofNumberSearch; // Proof-number search and its node store, or null until it is first used
+	TeamEurekaStatistics statistics; // Search statistics, or null if statistics are disabled
 	public TeamEurekaAI(byte player, BoardModel state) {
 		super(player, state);
 		teamName = "Team Eureka";
 		thisPlayerTurn = player;
 		opponentTurn = thisPlayerTurn == 1 ? 2 : 1;
+		treeSearch = false;
+		monteCarlo = Boolean.getBoolean("teameureka.mcts");
+		geometry = TeamEurekaGeometry.get(state.getWidth(), state.getHeight(), state.getkLength(), state.gravityEnabled());
+		table = new TeamEurekaTranspositionTable(Integer.getInteger("teameureka.hash", 16));
+		searchThreads = Math.max(1, Integer.getInteger("teameureka.threads", Runtime.getRuntime().availableProcessors()));
+		ponder = Boolean.getBoolean("teameureka.ponder");
+		radius = TeamEurekaBitboard.getDefaultRadius(state.getWidth() * state.getHeight());
+		book = TeamEurekaOpeningBook.open(System.getProperty("teameureka.book", "book"), geometry);
+		tablebase = TeamEurekaTablebase.open(System.getProperty("teameureka.book", "book"), geometry);
+		solveThreshold = Integer.getInteger("teameureka.solve", 16);
+		proofSearch = Boolean.getBoolean("teameureka.pns");
+		proofNodes = Long.getLong("teameureka.pnsnodes", 10000000L);
+		evaluator = new TeamEurekaEvaluator(thisPlayerTurn);
+		timeManager = new TeamEurekaTimeManager();
+		ordering = new TeamEurekaMoveOrdering(state.getWidth() * state.getHeight() + 1, state.getWidth() * state.getHeight());
+		previousKey = 0;
+		if (TeamEurekaStatistics.ENABLED) {
+			statistics = TeamEurekaStatistics.create(thisPlayerTurn);
+		}
 	}
 
 	@Override
 	public Point getMove(BoardModel state) {
-		return getMove(state, 5000);
+		long start = System.nanoTime();
+		try {
+			return getMove(state, timeManager.getFreeMoveTime());
+		} finally {
+			// Measured here, so that the time of every search mode is counted
+			timeManager.endFreeMove((System.nanoTime() - start) / 1000000);
+		}
 	}
 
 	/**
@@ -47,28 +104,28 @@ public class TeamEurekaAI extends CKPlayer {
 	 * requires that the tree have depth (depth - 1). At any node in the tree,
 	 * if time runs out, the method sets the timeOver field of the TeamEurekaStateNode
 	 * object to true, and immediately exits all the way back to the first method
-	 * call, which is in the getMove method. On the current board state, starting
-	 * from the bottom left cell, it checks every cell, left to right and bottom
-	 * to top, and looks for the first empty cell on the board. If there is one,
-	 * it will create a new board state with an added piece for one of the players,
-	 * depending on which player made the last move. The method will then wrap the
-	 * new board state in a TeamEurekaStateNode object, and will add the new TeamEurekaStateNode object
-	 * as a child of the current board state, recursively calling itself on the new
+	 * call, which is in the getMove method. On the current board state, the moves
+	 * are generated by the generateMoves method of TeamEurekaBitboard, which gives
+	 * the empty cells near the pieces already on the board, or every empty cell
+	 * if there are none. For each move, it will create a new board state with an
+	 * added piece for one of the players, depending on which player made the last
+	 * move. The method will then wrap the new board state in a TeamEurekaStateNode
+	 * object, and will add the new TeamEurekaStateNode object as a child of the
+	 * current board state, recursively calling itself on the new
 	 * TeamEurekaStateNode object.
 	 * 
 	 * @param node root node of the subtree to be generated
 	 * @param depth depth of the subtree to be generated
 	 * @param maximizingPlayer indicates if the current node is a max node
-	 * @param startTime start time
-	 * @param deadlineBuffer deadline with buffer
+	 * @param timer time control for the move
 	 */
-	public void extendTree(TeamEurekaStateNode node, int depth, boolean maximizingPlayer, long startTime, double deadlineBuffer) {
-		if (System.currentTimeMillis() - startTime < deadlineBuffer) {
+	public void extendTree(TeamEurekaStateNode node, int depth, boolean maximizingPlayer, TeamEurekaTimer timer) {
+		if (timer.hasTimeLeft()) {
 			if (depth > 1) {
 				if (maximizingPlayer) {
 					for (int i = 0; i < node.getChildren().length; i++) {
-						if (System.currentTimeMillis() - startTime < deadlineBuffer) {
-							extendTree(node.getChildren()[i], depth - 1, false, startTime, deadlineBuffer);
+						if (timer.hasTimeLeft()) {
+							extendTree(node.getChildren()[i], depth - 1, false, timer);
 							if (node.getChildren()[i].isTimeOver()) {
 								node.setTimeOver();
 								break;
@@ -82,8 +139,8 @@ public class TeamEurekaAI extends CKPlayer {
 				}
 				else {
 					for (int i = 0; i < node.getChildren().length; i++) {
-						if (System.currentTimeMillis() - startTime < deadlineBuffer) {
-							extendTree(node.getChildren()[i], depth - 1, true, startTime, deadlineBuffer);
+						if (timer.hasTimeLeft()) {
+							extendTree(node.getChildren()[i], depth - 1, true, timer);
 							if (node.getChildren()[i].isTimeOver()) {
 								node.setTimeOver();
 								break;
@@ -97,40 +154,22 @@ public class TeamEurekaAI extends CKPlayer {
 				}
 			}
 			else {
-				// Starting from the bottom left corner, going left to right and bottom to top,
-				// Find the first empty cell on the board, if one exists
-				if (maximizingPlayer) {
-					for (int j = 0; j < node.getState().getHeight(); j++) {
-						for (int i = 0; i < node.getState().getWidth(); i++) {
-							if (System.currentTimeMillis() - startTime < deadlineBuffer) {
-								if (node.getState().getSpace(i, j) == 0) {
-									BoardModel newState = node.getState().placePiece(new Point(i, j), (byte) thisPlayerTurn);
-									TeamEurekaStateNode newNode = new TeamEurekaStateNode(newState, newState.spacesLeft, thisPlayerTurn);
-									node.addChild(newNode);
-								}
-							}
-							else {
-								node.setTimeOver();
-								break;
-							}
-						}
+				// Add a child for each move generated on the board state
+				TeamEurekaBitboard state = node.getState();
+				int[] moves = new int[state.getSpacesLeft()];
+				int n = state.generateMoves(moves);
+				int player = maximizingPlayer ? thisPlayerTurn : opponentTurn;
+				node.setNumChildren(n);
+				for (int i = 0; i < n; i++) {
+					if (timer.hasTimeLeft()) {
+						Point move = state.toPoint(moves[i]);
+						TeamEurekaBitboard newState = state.placePiece(move.x, move.y, (byte) player);
+						TeamEurekaStateNode newNode = new TeamEurekaStateNode(newState, 0, player);
+						node.addChild(newNode);
 					}
-				}
-				else {
-					for (int j = 0; j < node.getState().getHeight(); j++) {
-						for (int i = 0; i < node.getState().getWidth(); i++) {
-							if (System.currentTimeMillis() - startTime < deadlineBuffer) {
-								if (node.getState().getSpace(i, j) == 0) {
-									BoardModel newState = node.getState().placePiece(new Point(i, j), (byte) opponentTurn);
-									TeamEurekaStateNode newNode = new TeamEurekaStateNode(newState, newState.spacesLeft, opponentTurn);
-									node.addChild(newNode);
-								}
-							}
-							else {
-								node.setTimeOver();
-								break;
-							}
-						}
+					else {
+						node.setTimeOver();
+						break;
 					}
 				}
 			}
@@ -157,27 +196,26 @@ public class TeamEurekaAI extends CKPlayer {
 	 * @param node root node of the subtree to be searched
 	 * @param depth depth of the subtree to be searched
 	 * @param maximizingPlayer indicates if the current node is a max node
-	 * @param startTime start time
-	 * @param deadlineBuffer deadline with buffer
+	 * @param timer time control for the move
 	 */
-	public void minimax(TeamEurekaStateNode node, int depth, boolean maximizingPlayer, long startTime, double deadlineBuffer) {
-		if (System.currentTimeMillis() - startTime < deadlineBuffer) {
-			if (terminalTest(node, startTime, deadlineBuffer)) {
-				node.setH(eval(node, startTime, deadlineBuffer));
+	public void minimax(TeamEurekaStateNode node, int depth, boolean maximizingPlayer, TeamEurekaTimer timer) {
+		if (timer.hasTimeLeft()) {
+			if (terminalTest(node)) {
+				node.setH(terminalValue(node));
 			}
 			else if (depth == 0) {
-				node.setH(eval(node, startTime, deadlineBuffer));
+				node.setH(eval(node));
 				if (!node.isQuiet()) {
 					//System.out.println("Quiescence test invoked");
-					quiescence(node, maximizingPlayer, startTime, deadlineBuffer);
+					quiescence(node, TeamEurekaSearch.QUIESCENCE_DEPTH, maximizingPlayer, timer);
 				}
 			}
 			else if (maximizingPlayer) {
 				int best = Integer.MIN_VALUE;
 				for (int i = 0; i < node.getChildren().length; i++) {
 					TeamEurekaStateNode tempNode = node.getChildren()[i];
-					minimax(tempNode, depth - 1, false, startTime, deadlineBuffer);
-					if(System.currentTimeMillis() - startTime < deadlineBuffer) {
+					minimax(tempNode, depth - 1, false, timer);
+					if(timer.hasTimeLeft()) {
 						if (tempNode.isTimeOver()) {
 							node.setTimeOver();
 							break;
@@ -197,8 +235,8 @@ public class TeamEurekaAI extends CKPlayer {
 				int best = Integer.MAX_VALUE;
 				for (int i = 0; i < node.getChildren().length; i++) {
 					TeamEurekaStateNode tempNode = node.getChildren()[i];
-					minimax(tempNode, depth - 1, true, startTime, deadlineBuffer);
-					if(System.currentTimeMillis() - startTime < deadlineBuffer) {
+					minimax(tempNode, depth - 1, true, timer);
+					if(timer.hasTimeLeft()) {
 						if (tempNode.isTimeOver()) {
 							node.setTimeOver();
 							break;
@@ -242,28 +280,27 @@ public class TeamEurekaAI extends CKPlayer {
 	 * @param alpha alpha value for the game tree
 	 * @param beta beta value for the game tree
 	 * @param maximizingPlayer indicates if the current node is a max node
-	 * @param startTime start time
-	 * @param deadlineBuffer deadline with buffer
+	 * @param timer time control for the move
 	 */
-	public void alphaBeta(TeamEurekaStateNode node, int depth, int alpha, int beta, boolean maximizingPlayer, long startTime, double deadlineBuffer) {
-		if (System.currentTimeMillis() - startTime < deadlineBuffer) {
-			if (terminalTest(node, startTime, deadlineBuffer)) {
-				node.setH(eval(node, startTime, deadlineBuffer));
+	public void alphaBeta(TeamEurekaStateNode node, int depth, int alpha, int beta, boolean maximizingPlayer, TeamEurekaTimer timer) {
+		if (timer.hasTimeLeft()) {
+			if (terminalTest(node)) {
+				node.setH(terminalValue(node));
 			}
 			else if (depth == 0) {
-				node.setH(eval(node, startTime, deadlineBuffer));
+				node.setH(eval(node));
 				if (!node.isQuiet()) {
 					//System.out.println("Quiescence test invoked");
-					quiescence(node, maximizingPlayer, startTime, deadlineBuffer);
+					quiescence(node, TeamEurekaSearch.QUIESCENCE_DEPTH, maximizingPlayer, timer);
 				}
 			}
 			else if (maximizingPlayer) {
 				int best = Integer.MIN_VALUE;
-				Arrays.sort(node.getChildren(), new TeamEurekaMaxNodeComparator());
+				Arrays.sort(node.getChildren(), maxNodeComparator);
 				for (int i = 0; i < node.getChildren().length; i++) {
-					if (System.currentTimeMillis() - startTime < deadlineBuffer) {
+					if (timer.hasTimeLeft()) {
 						TeamEurekaStateNode tempNode = node.getChildren()[i];
-						alphaBeta(tempNode, depth - 1, alpha, beta, false, startTime, deadlineBuffer);
+						alphaBeta(tempNode, depth - 1, alpha, beta, false, timer);
 						if (tempNode.isTimeOver()) {
 							node.setTimeOver();
 							break;
@@ -287,11 +324,11 @@ public class TeamEurekaAI extends CKPlayer {
 			}
 			else {
 				int best = Integer.MAX_VALUE;
-				Arrays.sort(node.getChildren(), new TeamEurekaMinNodeComparator());
+				Arrays.sort(node.getChildren(), minNodeComparator);
 				for (int i = 0; i < node.getChildren().length; i++) {
-					if (System.currentTimeMillis() - startTime < deadlineBuffer) {
+					if (timer.hasTimeLeft()) {
 						TeamEurekaStateNode tempNode = node.getChildren()[i];
-						alphaBeta(tempNode, depth - 1, alpha, beta, true, startTime, deadlineBuffer);
+						alphaBeta(tempNode, depth - 1, alpha, beta, true, timer);
 						if (tempNode.isTimeOver()) {
 							node.setTimeOver();
 							break;
@@ -321,54 +358,51 @@ public class TeamEurekaAI extends CKPlayer {
 	
 	/**
 	 * This method is used on nodes where the opponent can win
-	 * in the very next move. It uses the extendTree method to
-	 * extend the subtree rooted at the specified node by 1 level,
-	 * and recursively calls itself on each of the child nodes.
-	 * This process is repeated until a quiescent node is reached,
-	 * or until time runs out.
+	 * in the very next move. Instead of extending the subtree by
+	 * every possible move, only forcing moves are followed, in the
+	 * same manner as the quiescence method of TeamEurekaSearch: a
+	 * player who can complete a row wins, a player who must block two
+	 * rows loses, and a player who must block one row plays the block.
+	 * Otherwise, or once QUIESCENCE_DEPTH forced moves have been
+	 * followed, the node is given its heuristic value. The nodes for
+	 * the forced moves are not added to the game tree, so the next
+	 * call to extendTree is not affected.
 	 * 
 	 * @param node node that is not quiescent
+	 * @param depth most forced moves still to be followed
 	 * @param maximizingPlayer indicates if the current node is a max node
-	 * @param startTime start time
-	 * @param deadlineBuffer deadline with buffer
+	 * @param timer time control for the move
 	 */
-	public void quiescence(TeamEurekaStateNode node, boolean maximizingPlayer, long startTime, double deadlineBuffer) {
-		if (System.currentTimeMillis() - startTime < deadlineBuffer) {
-			if (node.isQuiet()) {
-				node.setH(eval(node, startTime, deadlineBuffer));
+	public void quiescence(TeamEurekaStateNode node, int depth, boolean maximizingPlayer, TeamEurekaTimer timer) {
+		if (timer.hasTimeLeft()) {
+			TeamEurekaBitboard state = node.getState();
+			int player = maximizingPlayer ? thisPlayerTurn : opponentTurn;
+			int[] cells = new int[state.getWidth() * state.getHeight()];
+			if (terminalTest(node)) {
+				node.setH(terminalValue(node));
+			}
+			else if (evaluator.findThreatCells(state, player, cells) > 0) {
+				// Player to move completes a row
+				node.setH(maximizingPlayer ? Integer.MAX_VALUE : Integer.MIN_VALUE);
 			}
 			else {
-				if (maximizingPlayer) {
-					int best = Integer.MIN_VALUE;
-					extendTree(node, 1, false, startTime, deadlineBuffer);
-					for (int i = 0; i < node.getChildren().length; i++) {
-						quiescence(node.getChildren()[i], false, startTime, deadlineBuffer);
-						if (node.isTimeOver()) {
-							node.setTimeOver();
-							break;
-						}
-						if (node.getChildren()[i].getH() >= best) {
-							best = node.getChildren()[i].getH();
-							node.setBestChild(i);
-						}
-					}
-					node.setH(best);
+				int n = evaluator.findThreatCells(state, maximizingPlayer ? opponentTurn : thisPlayerTurn, cells);
+				if (n == 0 || depth == 0 || !state.hasMovesLeft()) {
+					node.setH(eval(node));
+				}
+				else if (n > 1) {
+					// Two rows cannot both be blocked
+					node.setH(maximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE);
 				}
 				else {
-					int best = Integer.MAX_VALUE;
-					extendTree(node, 1, true, startTime, deadlineBuffer);
-					for (int i = 0; i < node.getChildren().length; i++) {
-						quiescence(node.getChildren()[i], true, startTime, deadlineBuffer);
-						if (node.isTimeOver()) {
-							node.setTimeOver();
-							break;
-						}
-						if (node.getChildren()[i].getH() <= best) {
-							best = node.getChildren()[i].getH();
-							node.setBestChild(i);
-						}
+					Point block = state.toPoint(cells[0]);
+					TeamEurekaBitboard newState = state.placePiece(block.x, block.y, (byte) player);
+					TeamEurekaStateNode newNode = new TeamEurekaStateNode(newState, 0, player);
+					quiescence(newNode, depth - 1, !maximizingPlayer, timer);
+					if (newNode.isTimeOver()) {
+						node.setTimeOver();
 					}
-					node.setH(best);
+					node.setH(newNode.getH());
 				}
 			}
 		}
@@ -380,21 +414,26 @@ public class TeamEurekaAI extends CKPlayer {
 	/**
 	 * This method checks if a player has won in the state enclosed by
 	 * the TeamEurekaStateNode object. If so, it returns true. Otherwise, it returns
-	 * false.
+	 * false. Only the lines through the last move are checked, since that
+	 * is the only piece that can have completed a winning row.
 	 * 
 	 * @param node node whose state is to be checked for a winner
-	 * @param startTime start time
-	 * @param deadlineBuffer deadline with buffer
 	 * @return the truth value of whether there is a winner in the current state
 	 */
-	public boolean terminalTest(TeamEurekaStateNode node, long startTime, double deadlineBuffer) {
-		if (eval(node, startTime, deadlineBuffer) == Integer.MAX_VALUE
-				|| eval(node, startTime, deadlineBuffer) == Integer.MIN_VALUE) {
-			return true;
-		}
-		else {
-			return false;
-		}
+	public boolean terminalTest(TeamEurekaStateNode node) {
+		return node.getState().getWinner() != 0;
+	}
+
+	/**
+	 * This method returns the utility value of a node for which
+	 * terminalTest returned true: +infinity if the AI won, and
+	 * -infinity if the opponent won.
+	 * 
+	 * @param node node whose state has a winner
+	 * @return the utility value of the node
+	 */
+	public int terminalValue(TeamEurekaStateNode node) {
+		return node.getState().getWinner() == thisPlayerTurn ? Integer.MAX_VALUE : Integer.MIN_VALUE;
 	}
 
 	/**
@@ -405,11 +444,11 @@ public class TeamEurekaAI extends CKPlayer {
 	 * @param newState new board state containing a new piece
 	 * @return the new piece on the board
 	 */
-	public Point stateDiff(BoardModel currentState, BoardModel newState) {
+	public Point stateDiff(TeamEurekaBitboard currentState, TeamEurekaBitboard newState) {
 		for (int j = 0; j < currentState.getHeight(); j++) {
 			for (int i = 0; i < currentState.getWidth(); i++) {
 				if (currentState.getSpace(i, j) != newState.getSpace(i, j)) {
-					return new Point(i, j);
+					return currentState.toPoint(currentState.getCell(i, j));
 				}
 			}
 		}
@@ -418,27 +457,348 @@ public class TeamEurekaAI extends CKPlayer {
 
 	@Override
 	public Point getMove(BoardModel state, int deadline) {
-		long startTime = System.currentTimeMillis();
+		if (treeSearch) {
+			return getTreeMove(state, deadline);
+		}
+		if (monteCarlo) {
+			return getMonteCarloMove(state, deadline);
+		}
+		TeamEurekaTimer timer = new TeamEurekaTimer(deadline);
+		int limit = 1;
+		TeamEurekaBitboard position = new TeamEurekaBitboard(state); // Search copy of the board state
+		position.setRadius(radius);
+		if (!stopPondering()) {
+			table.newSearch();
+		}
+		if (findReply(position) != -1) {
+			ordering.nextSearch(2);
+		}
+		else {
+			ordering.clear();
+		}
+		TeamEurekaSearch search = new TeamEurekaSearch(position, evaluator, table, ordering, thisPlayerTurn);
+		search.setTimer(timer, 0);
+		search.setTablebase(tablebase);
+		int symmetry = position.getCanonicalSymmetry();
+		long entry = table.probe(position.getKey(symmetry));
+		if (entry != 0 && search.preferRootMove(position.fromSymmetry(TeamEurekaTranspositionTable.getMove(entry), symmetry))) {
+			// An earlier search already reached this board state; continue from its depth
+			limit = Math.max(1, Math.min(TeamEurekaTranspositionTable.getDepth(entry), position.getSpacesLeft()));
+		}
+		int bestMove = search.getRootMove(0);
+		if (search.getNumRootMoves() == 1) {
+			// Only one legal move; no need to search
+			return finishMove(position, bestMove);
+		}
+		int bookMove = book != null ? book.lookup(position) : -1;
+		if (bookMove != -1) {
+			// Board state is in the opening book; no need to search
+			return finishMove(position, bookMove);
+		}
+		boolean solved = false; // Indicates if the endgame solver finished, so the board state is known to be lost
+		if (position.getSpacesLeft() <= solveThreshold || (tablebase != null && position.getSpacesLeft() <= tablebase.getMaxEmpty())) {
+			if (solverTable == null) {
+				solverTable = new TeamEurekaTranspositionTable(Integer.getInteger("teameureka.hash", 16));
+			}
+			solverTable.newSearch();
+			TeamEurekaSolver solver = new TeamEurekaSolver(position, solverTable, tablebase,
+					new TeamEurekaTimer(TeamEurekaTimeManager.getStageTime(timer, deadline, TeamEurekaSolver.TIME_SHARE)));
+			int value = solver.solve(thisPlayerTurn);
+			solved = !solver.isTimeOver();
+			if (solved && value != TeamEurekaTablebase.LOSS) {
+				// Exact win or draw; a lost board state is left to the search, in case the opponent goes wrong
+				return finishMove(position, solver.getBestMove());
+			}
+		}
+		if (proofSearch && !solved) {
+			int proofMove = proveBoardState(position, timer, deadline);
+			if (proofMove != -1) {
+				return finishMove(position, proofMove);
+			}
+		}
+		// A board state solved exactly has no forced win to find
+		int win = solved ? -1 : new TeamEurekaThreatSearch(position,
+				new TeamEurekaTimer(TeamEurekaTimeManager.getStageTime(timer, deadline, TeamEurekaThreatSearch.TIME_SHARE)))
+				.findWin(thisPlayerTurn);
+		if (win != -1) {
+			// Forced win by a sequence of threats; no need to search
+			return finishMove(position, win);
+		}
+		// Started only now, so that the solvers run before the search do not use up its target time
+		timeManager.startMove(timer, deadline, position.getSpacesLeft(), position.getWidth() * position.getHeight());
+		if (TeamEurekaStatistics.ENABLED) {
+			statistics.startMove();
+		}
+		TeamEurekaSearch[] helpers = startHelpers(position, timer);
+		int bestDepth = 0;
+		int timeoutDepth = 0;
+		while (limit <= position.getSpacesLeft() && timeManager.canStartIteration()) {
+			int move = search.search(limit);
+			if (search.isTimeOver()) {
+				timeoutDepth = limit;
+				break;
+			}
+			if (TeamEurekaStatistics.ENABLED) {
+				statistics.recordDepth(limit, timer.getElapsedTime(), search.getCounters());
+			}
+			bestMove = move;
+			bestDepth = limit;
+			timeManager.recordIteration(move, search.getBestScore());
+			limit++;
+		}
+		stopHelpers(helpers, timer);
+		// Use the move of a helper search if it completed a deeper depth limit
+		for (int i = 0; i < helpers.length; i++) {
+			if (helpers[i].getCompletedDepth() > bestDepth) {
+				bestDepth = helpers[i].getCompletedDepth();
+				bestMove = helpers[i].getCompletedMove();
+			}
+		}
+		if (TeamEurekaStatistics.ENABLED) {
+			statistics.endMove(timer.getElapsedTime(), bestDepth, timeoutDepth, position.getSpacesLeft(), search, helpers);
+		}
+		return finishMove(position, bestMove);
+	}
+
+	/**
+	 * This method runs proof-number search on the board state, first to
+	 * prove a win for the AI, and if that is disproved, to prove a win for
+	 * the opponent, in which case the board state is lost. Each search has
+	 * half of the time given to proof-number search, taken from the timer
+	 * of the move with getStageTime, so the search after it keeps its
+	 * reserve. Proven results are written to the standard error stream,
+	 * so that they are kept in the logs of a game.
+	 *
+	 * @param position current board state
+	 * @param timer timer of the move
+	 * @param deadline time limit for the move, in milliseconds
+	 * @return the cell index of a winning move, or -1 if no win was proven
+	 */
+	public int proveBoardState(TeamEurekaBitboard position, TeamEurekaTimer timer, int deadline) {
+		double share = TeamEurekaProofNumberSearch.TIME_SHARE / 2;
+		if (proofNumberSearch == null) {
+			proofNumberSearch = new TeamEurekaProofNumberSearch(position.getWidth() * position.getHeight(),
+					Integer.getInteger("teameureka.hash", 16));
+		}
+		TeamEurekaProofNumberSearch proof = proofNumberSearch;
+		proof.reset(position, proofNodes, new TeamEurekaTimer(TeamEurekaTimeManager.getStageTime(timer, deadline, share)));
+		int result = proof.prove(thisPlayerTurn, thisPlayerTurn);
+		if (result == TeamEurekaProofNumberSearch.PROVEN) {
+			System.err.println(teamName + ": proven win for player " + thisPlayerTurn + " with " + position.getSpacesLeft()
+					+ " empty cells (" + proof.getNodes() + " nodes)");
+			return proof.getWinningMove();
+		}
+		if (result == TeamEurekaProofNumberSearch.DISPROVEN) {
+			proof.reset(position, proofNodes, new TeamEurekaTimer(TeamEurekaTimeManager.getStageTime(timer, deadline, share)));
+			if (proof.prove(opponentTurn, thisPlayerTurn) == TeamEurekaProofNumberSearch.PROVEN) {
+				System.err.println(teamName + ": proven loss for player " + thisPlayerTurn + " with " + position.getSpacesLeft()
+						+ " empty cells (" + proof.getNodes() + " nodes)");
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * This method records the move chosen by getMove, so that the next
+	 * call can tell if it follows on from this one, starts pondering if
+	 * it is enabled, and converts the move into a Point.
+	 *
+	 * @param position current board state
+	 * @param move cell index of the chosen move
+	 * @return the chosen move
+	 */
+	public Point finishMove(TeamEurekaBitboard position, int move) {
+		previousKey = position.getKeyWith(move, thisPlayerTurn);
+		if (ponder) {
+			startPondering(position, move);
+		}
+		return position.toPoint(move);
+	}
+
+	/**
+	 * This method starts pondering: searching, on a background thread,
+	 * the board state expected after the chosen move and the opponent's
+	 * reply, while the opponent is thinking. The reply predicted is the
+	 * best move stored in the transposition table for the board state
+	 * after the chosen move. If there is no prediction, nothing is done.
+	 * The ponder search stores its results in the transposition table,
+	 * so if the opponent makes the predicted move, the next search starts
+	 * from the depth the ponder search reached, and otherwise it still
+	 * finds the entries for board states both searches have in common.
+	 *
+	 * @param position current board state
+	 * @param move cell index of the chosen move
+	 */
+	public void startPondering(TeamEurekaBitboard position, int move) {
+		if (position.getSpacesLeft() < 3) {
+			return;
+		}
+		TeamEurekaBitboard next = new TeamEurekaBitboard(position); // Board state after the predicted reply
+		next.makeMove(move, (byte) thisPlayerTurn);
+		int symmetry = next.getCanonicalSymmetry();
+		int reply = next.fromSymmetry(TeamEurekaTranspositionTable.getMove(table.probe(next.getKey(symmetry))), symmetry);
+		if (reply == -1) {
+			return;
+		}
+		Point point = next.toPoint(reply);
+		if (!next.isEmpty(reply) || next.getPlayableCell(point.x, point.y) != reply) {
+			return;
+		}
+		next.makeMove(reply, (byte) opponentTurn);
+		if (ponderThread == null) {
+			ponderThread = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "Team Eureka ponder");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		table.newSearch();
+		ponderTimer = new TeamEurekaTimer(Integer.MAX_VALUE);
+		TeamEurekaSearch search = new TeamEurekaSearch(next, new TeamEurekaEvaluator(thisPlayerTurn), table,
+				new TeamEurekaMoveOrdering(next.getSpacesLeft() + 1, next.getWidth() * next.getHeight()), thisPlayerTurn);
+		search.setTimer(ponderTimer, 0);
+		search.setTablebase(tablebase);
+		ponderFuture = ponderThread.submit(search);
+	}
+
+	/**
+	 * This method stops the ponder search, if one is running, and waits
+	 * for its thread to finish, so that it does not compete with the
+	 * search for the next move.
+	 *
+	 * @return true if a ponder search was running
+	 */
+	public boolean stopPondering() {
+		if (ponderFuture == null) {
+			return false;
+		}
+		ponderTimer.stop();
+		try {
+			ponderFuture.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+		}
+		ponderFuture = null;
+		return true;
+	}
+
+	/**
+	 * This method checks if the given board state is the board state
+	 * left by the last move chosen, plus one move by the opponent. If so,
+	 * the search for this move follows on from the last search.
+	 *
+	 * @param position current board state
+	 * @return the cell index of the opponent's move, or -1 if the board
+	 * state does not follow on from the last move chosen
+	 */
+	public int findReply(TeamEurekaBitboard position) {
+		int reply = position.getLastMove();
+		if (previousKey == 0 || reply == -1 || position.getSpace(reply) != opponentTurn) {
+			return -1;
+		}
+		return position.getKeyWith(reply, opponentTurn) == previousKey ? reply : -1;
+	}
+
+	/**
+	 * This method starts one helper search for each search thread other
+	 * than the main thread. Each helper searches its own copy of the board
+	 * state, with its own evaluator, and shares the transposition table
+	 * with the main search. Every other helper searches one ply deeper at
+	 * each depth limit, so the helpers do not all repeat the same work.
+	 *
+	 * @param position board state to be searched
+	 * @param timer time control for the move
+	 * @return the helper searches that were started
+	 */
+	public TeamEurekaSearch[] startHelpers(TeamEurekaBitboard position, TeamEurekaTimer timer) {
+		TeamEurekaSearch[] helpers = new TeamEurekaSearch[searchThreads - 1];
+		startHelperThreads();
+		helperFutures = new Future<?>[helpers.length];
+		for (int i = 0; i < helpers.length; i++) {
+			helpers[i] = new TeamEurekaSearch(new TeamEurekaBitboard(position), new TeamEurekaEvaluator(thisPlayerTurn), table,
+					new TeamEurekaMoveOrdering(position.getSpacesLeft() + 1, position.getWidth() * position.getHeight()), thisPlayerTurn);
+			helpers[i].setTimer(timer, i % 2 == 0 ? 1 : 0);
+			helpers[i].setTablebase(tablebase);
+			helperFutures[i] = helperThreads.submit(helpers[i]);
+		}
+		return helpers;
+	}
+
+	/**
+	 * This method creates the threads for helper searches, one for each
+	 * search thread other than the main thread, if they do not exist yet.
+	 */
+	public void startHelperThreads() {
+		if (searchThreads > 1 && helperThreads == null) {
+			helperThreads = Executors.newFixedThreadPool(searchThreads - 1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "Team Eureka helper");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+	/**
+	 * This method stops the given helper searches through their shared
+	 * timer, and waits for their threads to finish, so that no helper
+	 * keeps running after getMove returns.
+	 *
+	 * @param helpers helper searches to be stopped
+	 * @param timer time control shared with the helpers
+	 */
+	public void stopHelpers(TeamEurekaSearch[] helpers, TeamEurekaTimer timer) {
+		timer.stop();
+		for (int i = 0; i < helpers.length; i++) {
+			try {
+				helperFutures[i].get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * This method finds the best move by building the game search tree
+	 * with the extendTree method, one depth limit at a time, and searching
+	 * it with the alphaBeta or minimax method after each extension.
+	 * 
+	 * @param state current board state
+	 * @param deadline time limit in milliseconds
+	 * @return the best move
+	 */
+	public Point getTreeMove(BoardModel state, int deadline) {
+		TeamEurekaTimer timer = new TeamEurekaTimer(deadline);
 		boolean alphaBeta = true;
 		int limit = 1;
 		Point bestMove = null;
-		double deadlineBuffer = deadline * 0.85;
-		TeamEurekaStateNode gameTree = new TeamEurekaStateNode(state, state.spacesLeft, opponentTurn);
+		TeamEurekaBitboard position = new TeamEurekaBitboard(state); // Search copy of the board state
+		position.setRadius(radius);
+		TeamEurekaStateNode gameTree = new TeamEurekaStateNode(position, 0, opponentTurn);
 		TeamEurekaStateNode nextNode = gameTree;
-		while (System.currentTimeMillis() - startTime < deadlineBuffer && limit <= state.spacesLeft) {
-			extendTree(gameTree, limit, true, startTime, deadlineBuffer);
-			if(System.currentTimeMillis() - startTime < deadlineBuffer && limit <= state.spacesLeft) {
+		while (timer.hasTimeLeft() && limit <= state.spacesLeft) {
+			extendTree(gameTree, limit, true, timer);
+			if(timer.hasTimeLeft() && limit <= state.spacesLeft) {
 				if (alphaBeta) {
-					alphaBeta(gameTree, limit, Integer.MIN_VALUE, Integer.MAX_VALUE, true, startTime, deadlineBuffer);
+					alphaBeta(gameTree, limit, Integer.MIN_VALUE, Integer.MAX_VALUE, true, timer);
 				}
 				else {
-					minimax(gameTree, limit, true, startTime, deadlineBuffer);
+					minimax(gameTree, limit, true, timer);
 				}
 			}
 			else {
 				break;
 			}
-			if(System.currentTimeMillis() - startTime < deadlineBuffer && limit <= state.spacesLeft) {
+			if(timer.hasTimeLeft() && limit <= state.spacesLeft) {
 				nextNode = gameTree.getChildren()[gameTree.getBestChild()];
 			}
 			else {
@@ -446,365 +806,78 @@ public class TeamEurekaAI extends CKPlayer {
 			}
 			limit++;
 		}
-		BoardModel nextState = nextNode.getState(); // Board state containing best move
-		bestMove = stateDiff(state, nextState); // Return Point object containing best move
+		TeamEurekaBitboard nextState = nextNode.getState(); // Board state containing best move
+		bestMove = stateDiff(position, nextState); // Return Point object containing best move
 		return bestMove;
 	}
 
-	// Heuristic Evaluation Function
 	/**
-	 * This method is the heuristic evaluation function. It evaluates
-	 * a given board state for utility. The utility is based on three
-	 * features: number of possible winning rows, number of possible
-	 * losing rows, and number of threat rows blocked by the AI.
-	 * Threat rows consist of a line of K-2 of the opponent's pieces,
-	 * not necessarily connected to each other, and none of the AI's
-	 * pieces. The threat row is blocked whenever the AI places
-	 * a piece in any empty cell in the threat row, preventing
-	 * the opponent from having a guaranteed win. The result is a
-	 * weighted average of the three features. The number of possible
-	 * winning rows has a weight of 1, the number of possible losing
-	 * rows has a weight of -1, and the number of blocked threat rows
-	 * has a weight of 10, so that the heuristic favors moves which
-	 * block the opponent from winning. Also, if the AI has a winning
-	 * row, the method immediately returns +infinity, and if the
-	 * opponent has a winning row, the method immediately returns
-	 * -infinity.
-	 * 
-	 * @param node the node containing the board state to be evaluated
-	 * @param startTime start time
-	 * @param deadlineBuffer deadline with buffer
-	 * @return the utility value for the given board state
+	 * This method finds the best move by Monte Carlo tree search. If the
+	 * AI can complete a row, or must block one, that move is played right
+	 * away. Otherwise, the root of the tree is expanded, and simulations
+	 * are run on the main thread and on one helper thread for each other
+	 * search thread, all sharing the tree, until time runs out. The move
+	 * played is the most visited child of the root.
+	 *
+	 * @param state current board state
+	 * @param deadline time limit in milliseconds
+	 * @return the best move
 	 */
-	public int eval(TeamEurekaStateNode node, long startTime, double deadlineBuffer) {
-		BoardModel state = node.getState();
-		int a = 0; // Number of possible winning rows
-		int b = 0; // Number of possible losing rows
-		int c = 0; // Score of how close player's pieces are to the center horizontally
-		int d = 0; // Score of how close player's pieces are to the center vertically
-		int e = 0; // Score of how close opponent's pieces are to the center horizontally
-		int f = 0; // Score of how close opponent's pieces are to the center vertically
-		int g = 0; // Number of blocked threat rows
-		int numRows = state.getHeight(); // Number of rows
-		int numCols = state.getWidth(); // Number of columns
-		int k = state.getkLength(); // Value of K
-		int tempWin = 0; // Number of non-opponent pieces on the board starting at any cell
-		int tempLose = 0; // Number of non-AI pieces on the board starting at any cell
-		int win = 0; // Number of AI pieces on the board starting at any cell
-		int lose = 0; // Number of opponent pieces on the board starting at any cell
-		int[] line = new int[k]; // Stores the combination of k pieces on the board starting at any cell
-		String[] threats = new String[k + 3]; // Contains a list of all possible block threat rows
-		int[] threat1 = new int[k]; // Combination of pieces that corresponds to a block threat row
-		// Create a list of all possible ways to block a threat row
-		for (int x = 0; x < k; x++) {
-			threat1 = new int[k];
-			for (int y = 0; y < k; y++) {
-				if (x == y) {
-					threat1[y] = thisPlayerTurn;
-				}
-				else if ((y == k - 1) || (x == k - 1 && y == 0)) {
-					threat1[y] = 0;
-				}
-				else {
-					threat1[y] = opponentTurn;
-				}
-			}
-			threats[x] = Arrays.toString(threat1);
+	public Point getMonteCarloMove(BoardModel state, int deadline) {
+		TeamEurekaTimer timer = new TeamEurekaTimer(deadline);
+		TeamEurekaBitboard position = new TeamEurekaBitboard(state); // Search copy of the board state
+		position.setRadius(radius);
+		int[] moves = new int[position.getSpacesLeft()];
+		int n = evaluator.findThreatCells(position, thisPlayerTurn, moves);
+		if (n == 0) {
+			n = evaluator.findThreatCells(position, opponentTurn, moves);
 		}
-		for (int x = k; x < k + 3; x++) {
-			threat1 = new int[k];
-			for (int y = 0; y < k; y++) {
-				if (y == 0) {
-					threat1[y] = (x == k || x == k + 1) ? thisPlayerTurn : opponentTurn;
-				}
-				else if (y == k - 1) {
-					threat1[y] = (x == k || x == k + 2) ? thisPlayerTurn : opponentTurn;
-				}
-				else {
-					threat1[y] = opponentTurn;
-				}
-			}
-			threats[x] = Arrays.toString(threat1);
-		}
-		if (System.currentTimeMillis() - startTime < deadlineBuffer) {
-			// Check for horizontal winning and losing rows
-			for (int j = 0; j < numRows; j++) {
-				for (int i = 0; i <= numCols - k; i++) {
-					if (System.currentTimeMillis() - startTime < deadlineBuffer) {
-						for (int m = 0; m < k; m++) {
-							line[m] = state.getSpace(i + m, j); // Store the combination of pieces for row
-							if (state.getSpace(i + m, j) != thisPlayerTurn) {
-								// Cell doesn't contain AI piece; Opponent could win
-								tempLose++;
-							}
-							if (state.getSpace(i + m, j) == thisPlayerTurn || state.getSpace(i + m, j) == 0) {
-								// Cell doesn't contain opponent piece; AI could win
-								tempWin++;
-							}
-							if (state.getSpace(i + m, j) == thisPlayerTurn) {
-								// Cell contains AI piece
-								win++;
-								if (win == k) { // AI won; return +infinity
-									return Integer.MAX_VALUE;
-								}
-								// c and d are max when player's pieces are close to the center
-								// c and d are min when player's pieces are far from the center
-								c += (int) (Math.floor(numCols / 2) - Math.abs(Math.floor(numCols / 2) - i));
-								d += (int) (Math.floor(numRows / 2) - Math.abs(Math.floor(numRows / 2) - j));
-							}
-							if (state.getSpace(i + m, j) == opponentTurn) {
-								// Cell contains opponent piece
-								lose++;
-								if (lose == k) { // Opponent won; return -infinity
-									return Integer.MIN_VALUE;
-								}
-								// e and f are max when opponent's pieces are close to the center
-								// e and f are min when opponent's pieces are far from the center
-								e += (int) (Math.floor(numCols / 2) - Math.abs(Math.floor(numCols / 2) - i));
-								f += (int) (Math.floor(numRows / 2) - Math.abs(Math.floor(numRows / 2) - j));
-							}
-						}
-						if (lose == k - 1 && win == 0 && opponentTurn != node.getLastMove()) {
-							// Opponent could win in the very next move, so mark node as not quiescent
-							node.setQuiescence(false);
-						}
-						if (tempWin == k) {
-							// AI has a possible winning row
-							a++;
-						}
-						if (tempLose == k) {
-							// Opponent has a possible winning row
-							b++;
-						}
-						for (int s = 0; s < threats.length; s++) {
-							if (threats[s].equals(Arrays.toString(line))) {
-								if (i >= 0 && i + k - 2 <= numCols - 2) {
-									// Blocked threat detected
-									g++;
-								}
-							}
-						}
-						win = 0;
-						lose = 0;
-						tempWin = 0;
-						tempLose = 0;
-					}
-					else {
-						return a - b + c + d - e - f + 100*g;
-					}
-				}
-			}
-			line = new int[k];
-			// Check for vertical winning and losing rows
-			for (int i = 0; i < numCols; i++) {
-				for (int j = 0; j <= numRows - k; j++) {
-					if (System.currentTimeMillis() - startTime < deadlineBuffer) {
-						for (int m = 0; m < k; m++) {
-							line[m] = state.getSpace(i, j + m); // Store the combination of pieces for row
-							if (state.getSpace(i, j + m) != thisPlayerTurn) {
-								// Cell doesn't contain AI piece; Opponent could win
-								tempLose++;
-							}
-							if (state.getSpace(i, j + m) == thisPlayerTurn || state.getSpace(i, j + m) == 0) {
-								// Cell doesn't contain opponent piece; AI could win
-								tempWin++;
-							}
-							if (state.getSpace(i, j + m) == thisPlayerTurn) {
-								// Cell contains AI piece
-								win++;
-								if (win == k) { // AI won; return +infinity
-									return Integer.MAX_VALUE;
-								}
-								// c and d are max when player's pieces are close to the center
-								// c and d are min when player's pieces are far from the center
-								c += (int) (Math.floor(numCols / 2) - Math.abs(Math.floor(numCols / 2) - i));
-								d += (int) (Math.floor(numRows / 2) - Math.abs(Math.floor(numRows / 2) - j));
-							}
-							if (state.getSpace(i, j + m) == opponentTurn) {
-								// Cell contains opponent piece
-								lose++;
-								if (lose == k) { // Opponent won; return -infinity
-									return Integer.MIN_VALUE;
-								}
-								// e and f are max when opponent's pieces are close to the center
-								// e and f are min when opponent's pieces are far from the center
-								e += (int) (Math.floor(numCols / 2) - Math.abs(Math.floor(numCols / 2) - i));
-								f += (int) (Math.floor(numRows / 2) - Math.abs(Math.floor(numRows / 2) - j));
-							}
-						}
-						if (lose == k - 1 && win == 0 && opponentTurn != node.getLastMove()) {
-							// Opponent could win in the very next move, so mark node as not quiescent
-							node.setQuiescence(false);
-						}
-						if (tempWin == k) {
-							// AI has a possible winning row
-							a++;
-						}
-						if (tempLose == k) {
-							// Opponent has a possible winning row
-							b++;
-						}
-						for (int s = 0; s < threats.length; s++) {
-							if (threats[s].equals(Arrays.toString(line)))  {
-								if (j >= 0 && j + k - 2 <= numRows - 2) {
-									// Blocked threat detected
-									g++;
-								}
-							}
-						}
-						win = 0;
-						lose = 0;
-						tempWin = 0;
-						tempLose = 0;
-					}
-					else {
-						return a - b + c + d - e - f + 100*g;
-					}
-				}
-			}
-			line = new int[k];
-
-			// Check for diagonal (up and right) winning and losing rows
-			for (int i = 0; i <= numCols - k; i++) {
-				for (int j = 0; j <= numRows - k; j++) {
-					if (System.currentTimeMillis() - startTime < deadlineBuffer) {
-						for (int m = 0; m < k; m++) {
-							line[m] = state.getSpace(i + m, j + m); // Store the combination of pieces for row
-							if (state.getSpace(i + m, j + m) != thisPlayerTurn) {
-								// Cell doesn't contain AI piece; Opponent could win
-								tempLose++;
-							}
-							if (state.getSpace(i + m, j + m) == thisPlayerTurn || state.getSpace(i + m, j + m) == 0) {
-								// Cell doesn't contain opponent piece; AI could win
-								tempWin++;
-							}
-							if (state.getSpace(i + m, j + m) == thisPlayerTurn) {
-								// Cell contains AI piece
-								win++;
-								if (win == k) { // AI won; return +infinity
-									return Integer.MAX_VALUE;
-								}
-								// c and d are max when player's pieces are close to the center
-								// c and d are min when player's pieces are far from the center
-								c += (int) (Math.floor(numCols / 2) - Math.abs(Math.floor(numCols / 2) - i));
-								d += (int) (Math.floor(numRows / 2) - Math.abs(Math.floor(numRows / 2) - j));
-							}
-							if (state.getSpace(i + m, j + m) == opponentTurn) {
-								// Cell contains opponent piece
-								lose++;
-								if (lose == k) { // Opponent won; return -infinity
-									return Integer.MIN_VALUE;
-								}
-								// e and f are max when opponent's pieces are close to the center
-								// e and f are min when opponent's pieces are far from the center
-								e += (int) (Math.floor(numCols / 2) - Math.abs(Math.floor(numCols / 2) - i));
-								f += (int) (Math.floor(numRows / 2) - Math.abs(Math.floor(numRows / 2) - j));
-							}
-						}
-						if (lose == k - 1 && win == 0 && opponentTurn != node.getLastMove()) {
-							// Opponent could win in the very next move, so mark node as not quiescent
-							node.setQuiescence(false);
-						}
-						if (tempWin == k) {
-							// AI has a possible winning row
-							a++;
-						}
-						if (tempLose == k) {
-							// Opponent has a possible winning row
-							b++;
-						}
-						for (int s = 0; s < threats.length; s++) {
-							if (threats[s].equals(Arrays.toString(line))) {
-								if (j >= 0 && j + k - 2 <= numRows - 2) {
-									// Blocked threat detected
-									g++;
-								}
-							}
-						}
-						win = 0;
-						lose = 0;
-						tempWin = 0;
-						tempLose = 0;
-					}
-					else {
-						return a - b + c + d - e - f + 100*g;
-					}
-				}
+		if (n > 0) {
+			// Winning or forced blocking move; no need to search
+			return position.toPoint(moves[0]);
+		}
+		if (monteCarloTree == null) {
+			monteCarloTree = new TeamEurekaMonteCarloTree(Integer.getInteger("teameureka.mctsnodes", 1 << 20));
+		}
+		monteCarloTree.reset();
+		monteCarloTree.expand(0, moves, position.generateMoves(moves));
+		if (monteCarloTree.getNumChildren(0) == 1) {
+			// Only one legal move; no need to search
+			return position.toPoint(moves[0]);
+		}
+		startHelperThreads();
+		Future<?>[] futures = new Future<?>[searchThreads - 1];
+		for (int i = 0; i < futures.length; i++) {
+			futures[i] = helperThreads.submit(new TeamEurekaMonteCarloSearch(monteCarloTree, position, thisPlayerTurn, timer, System.nanoTime() + i));
+		}
+		new TeamEurekaMonteCarloSearch(monteCarloTree, position, thisPlayerTurn, timer, System.nanoTime()).run();
+		timer.stop();
+		for (int i = 0; i < futures.length; i++) {
+			try {
+				futures[i].get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
 			}
-			line = new int[k];
+		}
+		return position.toPoint(monteCarloTree.getBestMove());
+	}
 
-			// Check for diagonal (up and left) winning and losing rows
-			for (int i = numCols - 1; i >= k - 1; i--) {
-				for (int j = 0; j <= numRows - k; j++) {
-					if (System.currentTimeMillis() - startTime < deadlineBuffer) {
-						for (int m = 0; m < k; m++) {
-							line[m] = state.getSpace(i - m, j + m); // Store the combination of pieces for row
-							if (state.getSpace(i - m, j + m) != thisPlayerTurn) {
-								// Cell doesn't contain AI piece; Opponent could win
-								tempLose++;
-							}
-							if (state.getSpace(i - m, j + m) == thisPlayerTurn || state.getSpace(i - m, j + m) == 0) {
-								// Cell doesn't contain opponent piece; AI could win
-								tempWin++;
-							}
-							if (state.getSpace(i - m, j + m) == thisPlayerTurn) {
-								// Cell contains AI piece
-								win++;
-								if (win == k) { // AI won; return +infinity
-									return Integer.MAX_VALUE;
-								}
-								// c and d are max when player's pieces are close to the center
-								// c and d are min when player's pieces are far from the center
-								c += (int) (Math.floor(numCols / 2) - Math.abs(Math.floor(numCols / 2) - i));
-								d += (int) (Math.floor(numRows / 2) - Math.abs(Math.floor(numRows / 2) - j));
-							}
-							if (state.getSpace(i - m, j + m) == opponentTurn) {
-								// Cell contains opponent piece
-								lose++;
-								if (lose == k) { // Opponent won; return -infinity
-									return Integer.MIN_VALUE;
-								}
-								// e and f are max when opponent's pieces are close to the center
-								// e and f are min when opponent's pieces are far from the center
-								e += (int) (Math.floor(numCols / 2) - Math.abs(Math.floor(numCols / 2) - i));
-								f += (int) (Math.floor(numRows / 2) - Math.abs(Math.floor(numRows / 2) - j));
-							}
-						}
-						if (lose == k - 1 && win == 0 && opponentTurn != node.getLastMove()) {
-							// Opponent could win in the very next move, so mark node as not quiescent
-							node.setQuiescence(false);
-						}
-						if (tempWin == k) {
-							// AI has a possible winning row
-							a++;
-						}
-						if (tempLose == k) {
-							// Opponent has a possible winning row
-							b++;
-						}
-						for (int s = 0; s < threats.length; s++) {
-							if (threats[s].equals(Arrays.toString(line))) {
-								if (j >= 0 && j + k - 2 <= numRows - 2) {
-									// Blocked threat detected
-									g++;
-								}
-							}
-						}
-						win = 0;
-						lose = 0;
-						tempWin = 0;
-						tempLose = 0;
-						
-					}
-					else {
-						return a - b + c + d - e - f + 100*g;
-					}
-				}
-			}
-			return a - b + c + d - e - f + 100*g;
-		} 
-		else {
-			return a - b + c + d - e - f + 100*g;
+	/**
+	 * This method evaluates the board state enclosed by the given node,
+	 * using the heuristic evaluation function of TeamEurekaEvaluator.
+	 * If the board state is not quiescent, the node is marked as not
+	 * quiescent.
+	 * 
+	 * @param node the node containing the board state to be evaluated
+	 * @return the utility value for the given board state
+	 */
+	public int eval(TeamEurekaStateNode node) {
+		int h = evaluator.eval(node.getState(), node.getLastMove());
+		if (!evaluator.isQuiet()) {
+			node.setQuiescence(false);
 		}
+		return h;
 	}
 }
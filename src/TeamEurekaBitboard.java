@@ -0,0 +1,625 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaBitboard class is a compact board state used inside the
+ * search in place of BoardModel. Each player's pieces are stored as a
+ * bit set in an array of longs, one bit per cell. Cells are numbered
+ * column by column, starting from the bottom left corner, so the cell
+ * at column x and row y has index (x * height + y). Boards with up to
+ * 64 cells fit in a single long per player.
+ *
+ * A TeamEurekaBitboard is built once from the BoardModel passed to
+ * getMove, and BoardModel is only used again when the chosen move is
+ * returned as a Point. There are accessors for the board dimensions,
+ * the contents of any cell, and the last move made on the board.
+ *
+ * A board state can either be copied with placePiece, or changed in
+ * place with makeMove and undoMove, so that a depth-first search can
+ * play and take back moves on a single TeamEurekaBitboard object.
+ * Either way, the Zobrist key of the board state is updated with the
+ * move, for looking the board state up in a transposition table.
+ *
+ * On large boards, most empty cells are far from every piece, and are
+ * not worth searching. If a radius is set with setRadius, the board state
+ * keeps a frontier: a bit set of the empty cells within that distance
+ * of some piece. The frontier is updated with every move, by adding the
+ * cells around the new piece, so generateMoves only has to go through
+ * the frontier instead of the whole board. By default, the frontier is
+ * only used on boards with at least FRONTIER_CELLS cells. On smaller
+ * boards, searching every empty cell costs little, and a move far from
+ * the pieces can still matter, so the whole board is searched unless
+ * the teameureka.radius system property sets a radius.
+ *
+ * With gravity, the board state also keeps the height of each column,
+ * which is the row the next piece in that column lands in, in the same
+ * manner as Connect Four solvers. The playable cell of a column is then
+ * found without searching down the column, and generateMoves gives
+ * exactly one move for each column that is not full, starting from the
+ * center column, instead of one move for every empty cell.
+ *
+ * The board state also keeps the Zobrist key of its image under every
+ * symmetry of the board, updated in the same way. The smallest of them
+ * is the canonical key, which is the same for every board state that is
+ * a mirror image or rotation of another, so they share transposition
+ * table entries. Moves stored with a canonical key are stored as they
+ * would be played on the image, and mapped back when they are read. If
+ * a board state is its own image under a symmetry, two moves that are
+ * images of each other lead to equivalent board states, so generateMoves
+ * only gives one of them. This prunes most of the moves on an empty or
+ * nearly empty board.
+ *
+ * Since a player can only win with the piece they just placed, checking
+ * for a winner only needs the four lines through the last move. The
+ * result is kept until the next move, so each board state is checked
+ * at most once, and undoMove restores the result for the board state
+ * before the move.
+ */
+import connectK.BoardModel;
+
+import java.awt.Point;
+
+public class TeamEurekaBitboard {
+	public static final int FRONTIER_CELLS = 15 * 15; // Fewest cells on a board for the frontier to be used by default
+	public static final int FRONTIER_RADIUS = 2; // Radius of the frontier used by default
+	private TeamEurekaGeometry geometry; // Shared tables for the board geometry
+	private int width; // Number of columns
+	private int height; // Number of rows
+	private int kLength; // Value of K
+	private boolean gravity; // Indicates if pieces drop to the lowest empty row
+	private long[][] bits; // Bit sets of pieces for player 1 and player 2
+	private int spacesLeft; // Number of empty cells
+	private int lastMove; // Cell index of the last piece placed, or -1
+	private long[] keys; // Zobrist key of the board state under each symmetry, starting with the identity
+	private byte winner; // Player who won with the last move, 0 if neither, or -1 if not yet checked
+	private int[] previousMoves; // Last move before each call to makeMove, for undoMove
+	private byte[] previousWinners; // Winner before each call to makeMove, for undoMove
+	private int[] heights; // Lowest empty row of each column, or null without gravity
+	private long[][] neighbours; // Bit sets of the cells near each cell, or null if there is no frontier
+	private long[] frontier; // Bit set of empty cells near a piece, or null if there is no frontier
+	private long[][] previousFrontiers; // Frontier before each call to makeMove, for undoMove
+	private int moveCount; // Number of moves made with makeMove and not yet undone
+
+	public TeamEurekaBitboard(BoardModel state) {
+		width = state.getWidth();
+		height = state.getHeight();
+		kLength = state.getkLength();
+		gravity = state.gravityEnabled();
+		geometry = TeamEurekaGeometry.get(width, height, kLength, gravity);
+		bits = new long[2][(width * height + 63) >>> 6];
+		keys = new long[geometry.getNumSymmetries()];
+		spacesLeft = state.spacesLeft;
+		lastMove = -1;
+		winner = -1;
+		for (int i = 0; i < width; i++) {
+			for (int j = 0; j < height; j++) {
+				byte piece = state.getSpace(i, j);
+				if (piece != 0) {
+					int cell = i * height + j;
+					bits[piece - 1][cell >>> 6] |= 1L << cell;
+					updateKeys(cell, piece);
+				}
+			}
+		}
+		Point last = state.getLastMove();
+		if (last != null) {
+			lastMove = last.x * height + last.y;
+		}
+		if (gravity) {
+			heights = new int[width];
+			for (int i = 0; i < width; i++) {
+				while (heights[i] < height && state.getSpace(i, heights[i]) != 0) {
+					heights[i]++;
+				}
+			}
+		}
+	}
+
+	public TeamEurekaBitboard(TeamEurekaBitboard other) {
+		geometry = other.geometry;
+		width = other.width;
+		height = other.height;
+		kLength = other.kLength;
+		gravity = other.gravity;
+		bits = new long[][] { other.bits[0].clone(), other.bits[1].clone() };
+		spacesLeft = other.spacesLeft;
+		lastMove = other.lastMove;
+		winner = other.winner;
+		keys = other.keys.clone();
+		if (other.heights != null) {
+			heights = other.heights.clone();
+		}
+		neighbours = other.neighbours;
+		if (other.frontier != null) {
+			frontier = other.frontier.clone();
+		}
+	}
+
+	public TeamEurekaGeometry getGeometry() {
+		return geometry;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getkLength() {
+		return kLength;
+	}
+
+	public boolean gravityEnabled() {
+		return gravity;
+	}
+
+	public int getSpacesLeft() {
+		return spacesLeft;
+	}
+
+	public int getLastMove() {
+		return lastMove;
+	}
+
+	public long getKey() {
+		return keys[0];
+	}
+
+	/**
+	 * This method returns the Zobrist key of the image of this board
+	 * state under the given symmetry.
+	 *
+	 * @param symmetry index of the symmetry
+	 * @return the Zobrist key of the image
+	 */
+	public long getKey(int symmetry) {
+		return keys[symmetry];
+	}
+
+	/**
+	 * This method returns the symmetry whose image of this board state
+	 * has the smallest Zobrist key. That key is the canonical key of the
+	 * board state, used for the transposition table.
+	 *
+	 * @return the index of the symmetry
+	 */
+	public int getCanonicalSymmetry() {
+		int best = 0;
+		for (int s = 1; s < keys.length; s++) {
+			if (keys[s] < keys[best]) {
+				best = s;
+			}
+		}
+		return best;
+	}
+
+	public long getCanonicalKey() {
+		return keys[getCanonicalSymmetry()];
+	}
+
+	/**
+	 * This method maps a move on this board state to the same move on its
+	 * image under the given symmetry.
+	 *
+	 * @param cell cell index of the move, or -1 if there is none
+	 * @param symmetry index of the symmetry
+	 * @return the cell index of the move on the image, or -1
+	 */
+	public int toSymmetry(int cell, int symmetry) {
+		return cell == -1 ? -1 : geometry.getSymmetries()[symmetry][cell];
+	}
+
+	/**
+	 * This method maps a move on the image of this board state under the
+	 * given symmetry back to the same move on this board state.
+	 *
+	 * @param cell cell index of the move on the image, or -1 if there is none
+	 * @param symmetry index of the symmetry
+	 * @return the cell index of the move, or -1
+	 */
+	public int fromSymmetry(int cell, int symmetry) {
+		return cell == -1 ? -1 : geometry.getInverseSymmetries()[symmetry][cell];
+	}
+
+	/**
+	 * This method adds a piece of the given player at the specified cell
+	 * to the Zobrist keys under every symmetry, or removes it if it is
+	 * already there.
+	 *
+	 * @param cell cell index of the piece
+	 * @param player player the piece belongs to (1 or 2)
+	 */
+	private void updateKeys(int cell, int player) {
+		long[] zobrist = geometry.getZobrist();
+		int[][] symmetries = geometry.getSymmetries();
+		int offset = (player - 1) * width * height;
+		for (int s = 0; s < keys.length; s++) {
+			keys[s] ^= zobrist[offset + symmetries[s][cell]];
+		}
+	}
+
+	/**
+	 * This method returns the Zobrist key this board state would have if
+	 * the given player's piece at the specified cell were added, or
+	 * removed if it is already there, without changing the board state.
+	 *
+	 * @param cell cell index of the piece
+	 * @param player player the piece belongs to (1 or 2)
+	 * @return the Zobrist key of the resulting board state
+	 */
+	public long getKeyWith(int cell, int player) {
+		return keys[0] ^ geometry.getZobrist()[(player - 1) * width * height + cell];
+	}
+
+	/**
+	 * This method returns the first word of the bit set of the given
+	 * player's pieces, which holds the whole board on boards with up to
+	 * 64 cells.
+	 *
+	 * @param player player whose pieces are returned (1 or 2)
+	 * @return the bit set of the player's pieces
+	 */
+	public long getPieces(int player) {
+		return bits[player - 1][0];
+	}
+
+	public boolean hasMovesLeft() {
+		return spacesLeft > 0;
+	}
+
+	public int getCell(int x, int y) {
+		return x * height + y;
+	}
+
+	public byte getSpace(int cell) {
+		long mask = 1L << cell;
+		if ((bits[0][cell >>> 6] & mask) != 0) {
+			return 1;
+		}
+		if ((bits[1][cell >>> 6] & mask) != 0) {
+			return 2;
+		}
+		return 0;
+	}
+
+	public byte getSpace(int x, int y) {
+		return getSpace(x * height + y);
+	}
+
+	public boolean isEmpty(int cell) {
+		return ((bits[0][cell >>> 6] | bits[1][cell >>> 6]) & (1L << cell)) == 0;
+	}
+
+	/**
+	 * This method returns a new board state with a piece for the given
+	 * player added at the specified cell. If gravity is enabled, the
+	 * piece drops to the lowest empty row of its column, in the same
+	 * manner as BoardModel.placePiece. Only the two bit sets are copied,
+	 * so no Point or BoardModel objects are created.
+	 *
+	 * @param x column of the new piece
+	 * @param y row of the new piece
+	 * @param player player placing the piece (1 or 2)
+	 * @return the new board state
+	 */
+	public TeamEurekaBitboard placePiece(int x, int y, byte player) {
+		int cell = getPlayableCell(x, y);
+		TeamEurekaBitboard next = new TeamEurekaBitboard(this);
+		next.bits[player - 1][cell >>> 6] |= 1L << cell;
+		next.updateKeys(cell, player);
+		next.spacesLeft = spacesLeft - 1;
+		next.lastMove = cell;
+		next.winner = -1;
+		if (heights != null) {
+			next.heights[cell / height]++;
+		}
+		if (frontier != null) {
+			next.addToFrontier(cell);
+		}
+		return next;
+	}
+
+	/**
+	 * This method returns the cell a piece placed at the specified
+	 * column and row would end up in. Without gravity, this is the
+	 * cell itself. With gravity, it is the lowest empty row of the
+	 * column, which is read from the column heights.
+	 *
+	 * @param x column of the piece
+	 * @param y row of the piece
+	 * @return the cell index where the piece would be placed
+	 */
+	public int getPlayableCell(int x, int y) {
+		if (heights != null && heights[x] < y) {
+			return x * height + heights[x];
+		}
+		return x * height + y;
+	}
+
+	/**
+	 * This method places a piece for the given player at the specified
+	 * cell of this board state, without making a copy. The cell must
+	 * be empty, and must already account for gravity. The move can be
+	 * taken back with undoMove.
+	 *
+	 * @param cell cell index of the new piece
+	 * @param player player placing the piece (1 or 2)
+	 */
+	public void makeMove(int cell, byte player) {
+		if (previousMoves == null) {
+			previousMoves = new int[spacesLeft];
+			previousWinners = new byte[spacesLeft];
+		}
+		if (frontier != null) {
+			if (previousFrontiers == null) {
+				previousFrontiers = new long[previousMoves.length][frontier.length];
+			}
+			System.arraycopy(frontier, 0, previousFrontiers[moveCount], 0, frontier.length);
+		}
+		previousWinners[moveCount] = winner;
+		previousMoves[moveCount++] = lastMove;
+		winner = -1;
+		bits[player - 1][cell >>> 6] |= 1L << cell;
+		updateKeys(cell, player);
+		spacesLeft--;
+		lastMove = cell;
+		if (heights != null) {
+			heights[cell / height]++;
+		}
+		if (frontier != null) {
+			addToFrontier(cell);
+		}
+	}
+
+	/**
+	 * This method takes back the most recent move made with makeMove,
+	 * restoring the board state to what it was before that move.
+	 */
+	public void undoMove() {
+		long mask = ~(1L << lastMove);
+		updateKeys(lastMove, getSpace(lastMove));
+		bits[0][lastMove >>> 6] &= mask;
+		bits[1][lastMove >>> 6] &= mask;
+		spacesLeft++;
+		if (heights != null) {
+			heights[lastMove / height]--;
+		}
+		lastMove = previousMoves[--moveCount];
+		winner = previousWinners[moveCount];
+		if (frontier != null) {
+			System.arraycopy(previousFrontiers[moveCount], 0, frontier, 0, frontier.length);
+		}
+	}
+
+	/**
+	 * This method returns the radius of the frontier for a board with the
+	 * given number of cells: the teameureka.radius system property if it
+	 * is set, or else FRONTIER_RADIUS on boards with at least
+	 * FRONTIER_CELLS cells, and 0, for the whole board, on smaller ones.
+	 *
+	 * @param numCells number of cells on the board
+	 * @return the radius of the frontier, or 0 for the whole board
+	 */
+	public static int getDefaultRadius(int numCells) {
+		return Integer.getInteger("teameureka.radius", numCells >= FRONTIER_CELLS ? FRONTIER_RADIUS : 0);
+	}
+
+	/**
+	 * This method makes the board state keep a frontier of the empty
+	 * cells within the given distance of a piece, which generateMoves
+	 * then uses in place of the whole board. The frontier is built from
+	 * the pieces already on the board. A radius of 0 turns the frontier
+	 * off. The frontier is not used with gravity, where there is only one
+	 * playable cell in each column anyway. Any cell that completes or
+	 * blocks a row is next to a piece, so it is always in the frontier.
+	 *
+	 * @param radius greatest distance from a piece, in columns or rows
+	 */
+	public void setRadius(int radius) {
+		if (radius <= 0 || gravity) {
+			neighbours = null;
+			frontier = null;
+			return;
+		}
+		neighbours = geometry.getNeighbours(radius);
+		frontier = new long[bits[0].length];
+		previousFrontiers = null;
+		for (int cell = 0; cell < width * height; cell++) {
+			if (!isEmpty(cell)) {
+				addToFrontier(cell);
+			}
+		}
+	}
+
+	/**
+	 * This method adds the empty cells near the given cell to the
+	 * frontier, and removes the cell itself.
+	 *
+	 * @param cell cell index of a new piece
+	 */
+	private void addToFrontier(int cell) {
+		long[] near = neighbours[cell];
+		for (int i = 0; i < frontier.length; i++) {
+			frontier[i] = (frontier[i] | near[i]) & ~(bits[0][i] | bits[1][i]);
+		}
+	}
+
+	/**
+	 * This method fills the given array with the moves to be searched on
+	 * this board state. With gravity, there is one move for each column
+	 * that is not full, going outwards from the center column. Otherwise,
+	 * if there is a frontier with any cells in it, the moves are the cells
+	 * of the frontier. Otherwise, such as on the first move of the game,
+	 * starting from the bottom left corner, every cell is checked, left to
+	 * right and bottom to top, and each empty cell is added. Moves that
+	 * are equivalent to another move by a symmetry of the board state are
+	 * then removed.
+	 *
+	 * @param moves array to store the moves in
+	 * @return the number of moves
+	 */
+	public int generateMoves(int[] moves) {
+		int n = 0;
+		if (heights != null) {
+			for (int i = 0; i < width; i++) {
+				int x = width / 2 + (i % 2 == 0 ? i / 2 : -(i + 1) / 2);
+				if (heights[x] < height) {
+					moves[n++] = x * height + heights[x];
+				}
+			}
+			return removeSymmetricMoves(moves, n);
+		}
+		if (frontier != null) {
+			for (int i = 0; i < frontier.length; i++) {
+				long word = frontier[i];
+				while (word != 0) {
+					moves[n++] = (i << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+				}
+			}
+			if (n > 0) {
+				return removeSymmetricMoves(moves, n);
+			}
+		}
+		for (int j = 0; j < height; j++) {
+			for (int i = 0; i < width; i++) {
+				if (isEmpty(i * height + j)) {
+					moves[n++] = i * height + j;
+				}
+			}
+		}
+		return removeSymmetricMoves(moves, n);
+	}
+
+	/**
+	 * This method removes every move that is equivalent to a move with a
+	 * smaller cell index, because a symmetry that leaves this board state
+	 * unchanged maps one onto the other. A board state is taken to be its
+	 * own image under a symmetry if their Zobrist keys are equal. Of each
+	 * set of equivalent moves, the one with the smallest cell index is
+	 * kept, and the order of the moves kept is unchanged.
+	 *
+	 * @param moves list of moves
+	 * @param n number of moves
+	 * @return the number of moves left
+	 */
+	private int removeSymmetricMoves(int[] moves, int n) {
+		int symmetric = 0; // Bit set of the symmetries that leave the board state unchanged
+		for (int s = 1; s < keys.length; s++) {
+			if (keys[s] == keys[0]) {
+				symmetric |= 1 << s;
+			}
+		}
+		if (symmetric == 0) {
+			return n;
+		}
+		int[][] symmetries = geometry.getSymmetries();
+		int kept = 0;
+		for (int i = 0; i < n; i++) {
+			int move = moves[i];
+			boolean smallest = true;
+			for (int s = 1; s < keys.length && smallest; s++) {
+				if ((symmetric & (1 << s)) != 0 && symmetries[s][move] < move) {
+					smallest = false;
+				}
+			}
+			if (smallest) {
+				moves[kept++] = move;
+			}
+		}
+		return kept;
+	}
+
+	/**
+	 * This method returns the player who won with the last move. Only
+	 * the horizontal, vertical and two diagonal lines through the last
+	 * piece placed are checked, by counting the player's pieces next to
+	 * it in both directions along each line. The result is kept, so it
+	 * is only worked out once for each board state.
+	 *
+	 * @return the player who won (1 or 2), or 0 if neither player has won
+	 */
+	public byte getWinner() {
+		if (winner == -1) {
+			winner = 0;
+			if (lastMove != -1) {
+				byte player = getSpace(lastMove);
+				int x = lastMove / height;
+				int y = lastMove % height;
+				if (countLine(x, y, 1, 0, player) >= kLength
+						|| countLine(x, y, 0, 1, player) >= kLength
+						|| countLine(x, y, 1, 1, player) >= kLength
+						|| countLine(x, y, 1, -1, player) >= kLength) {
+					winner = player;
+				}
+			}
+		}
+		return winner;
+	}
+
+	/**
+	 * This method counts the pieces of the given player in an unbroken
+	 * line through the specified cell, in both directions along the line.
+	 *
+	 * @param x column of the cell
+	 * @param y row of the cell
+	 * @param dx column step along the line
+	 * @param dy row step along the line
+	 * @param player player whose pieces are counted
+	 * @return the length of the line, including the cell itself
+	 */
+	private int countLine(int x, int y, int dx, int dy, byte player) {
+		int count = 1;
+		for (int i = x + dx, j = y + dy; i >= 0 && i < width && j >= 0 && j < height && getSpace(i, j) == player; i += dx, j += dy) {
+			count++;
+		}
+		for (int i = x - dx, j = y - dy; i >= 0 && i < width && j >= 0 && j < height && getSpace(i, j) == player; i -= dx, j -= dy) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * This method converts a cell index into a Point, for returning
+	 * a move to the game through the CKPlayer interface.
+	 *
+	 * @param cell cell index
+	 * @return the column and row of the cell
+	 */
+	public Point toPoint(int cell) {
+		return new Point(cell / height, cell % height);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder ret = new StringBuilder();
+		for (int j = height - 1; j >= 0; j--) {
+			for (int i = 0; i < width; i++) {
+				ret.append(getSpace(i, j));
+			}
+			ret.append('\n');
+		}
+		return ret.toString();
+	}
+}
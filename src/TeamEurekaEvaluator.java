@@ -0,0 +1,421 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaEvaluator class holds the heuristic evaluation function
+ * shared by the game tree search and the depth-first search over a single
+ * mutable TeamEurekaBitboard. Besides the utility value, each evaluation
+ * records whether the evaluated board state is quiescent, which can be
+ * read back with the isQuiet method.
+ *
+ * For the depth-first search, the evaluator can also keep track of a
+ * board state incrementally. After reset is called on a board state,
+ * moves are played and taken back through the makeMove and undoMove
+ * methods of the evaluator, which update the feature counts of only
+ * the K-length rows passing through the changed cell. Each row is
+ * kept as a pair of bitmasks, so the rows are updated without reading
+ * the board, and blocked threat rows are matched with a table lookup
+ * instead of by comparing strings. The utility
+ * value of the tracked board state is then available from eval in
+ * constant time, without scanning the board.
+ */
+public class TeamEurekaEvaluator {
+	int thisPlayerTurn; // Player number for TeamEurekaAI (1 or 2)
+	int opponentTurn; // Player number for other player (1 or 2)
+	private boolean quiet; // Indicates if the last evaluated state is quiescent
+	private TeamEurekaBitboard state; // Board state tracked incrementally
+	private TeamEurekaGeometry geometry; // Tables for the geometry of the tracked board state
+	private int k; // Value of K for the tracked board state
+	private int[] aiMasks; // Bitmask of AI pieces in each row
+	private int[] oppMasks; // Bitmask of opponent pieces in each row
+	private int a; // Number of possible winning rows
+	private int b; // Number of possible losing rows
+	private int cd; // Score of how close player's pieces are to the center
+	private int ef; // Score of how close opponent's pieces are to the center
+	private int g; // Number of blocked threat rows
+	private int wins; // Number of rows filled with AI pieces
+	private int losses; // Number of rows filled with opponent pieces
+	private int loseThreats; // Number of rows the opponent can fill in one move
+	private int winThreats; // Number of rows the AI can fill in one move
+	private int[] marks; // Stamp of the last list of threat cells each cell was added to
+	private int stamp; // Stamp of the list of threat cells being built
+	public TeamEurekaEvaluator(int player) {
+		thisPlayerTurn = player;
+		opponentTurn = thisPlayerTurn == 1 ? 2 : 1;
+		quiet = true;
+	}
+
+	/**
+	 * This method returns whether the board state passed to the last
+	 * call of eval is quiescent, meaning the opponent cannot win on
+	 * the very next move.
+	 *
+	 * @return the truth value of whether the last evaluated state is quiescent
+	 */
+	public boolean isQuiet() {
+		return quiet;
+	}
+
+	/**
+	 * This method starts tracking the given board state. The feature
+	 * counts of every K-length row on the board are computed once, and
+	 * from then on are only updated by the makeMove and undoMove methods.
+	 *
+	 * @param state the board state to be tracked
+	 */
+	public void reset(TeamEurekaBitboard state) {
+		this.state = state;
+		geometry = state.getGeometry();
+		k = geometry.getkLength();
+		int[] windowCells = geometry.getWindowCells();
+		aiMasks = new int[geometry.getNumWindows()];
+		oppMasks = new int[geometry.getNumWindows()];
+		for (int w = 0; w < geometry.getNumWindows(); w++) {
+			for (int m = 0; m < k; m++) {
+				byte piece = state.getSpace(windowCells[w * k + m]);
+				if (piece == thisPlayerTurn) {
+					aiMasks[w] |= 1 << m;
+				}
+				else if (piece == opponentTurn) {
+					oppMasks[w] |= 1 << m;
+				}
+			}
+		}
+		a = 0;
+		b = 0;
+		cd = 0;
+		ef = 0;
+		g = 0;
+		wins = 0;
+		losses = 0;
+		loseThreats = 0;
+		winThreats = 0;
+		for (int w = 0; w < geometry.getNumWindows(); w++) {
+			updateRow(w, 1);
+		}
+	}
+
+	/**
+	 * This method places a piece on the tracked board state, and updates
+	 * the feature counts of the rows passing through the new piece. The
+	 * rows are first removed from the counts, then the piece is placed,
+	 * and then the rows are added back with their new contents.
+	 *
+	 * @param cell cell index of the new piece
+	 * @param player player placing the piece (1 or 2)
+	 */
+	public void makeMove(int cell, byte player) {
+		updateRows(cell, -1);
+		state.makeMove(cell, player);
+		toggleRows(cell, player == thisPlayerTurn);
+		updateRows(cell, 1);
+	}
+
+	/**
+	 * This method takes back the last move on the tracked board state,
+	 * and updates the feature counts of the rows passing through the
+	 * removed piece, reversing the update done by makeMove.
+	 */
+	public void undoMove() {
+		int cell = state.getLastMove();
+		boolean ai = state.getSpace(cell) == thisPlayerTurn;
+		updateRows(cell, -1);
+		state.undoMove();
+		toggleRows(cell, ai);
+		updateRows(cell, 1);
+	}
+
+	/**
+	 * This method adds or removes the feature counts of every K-length
+	 * row, in all four directions, that passes through the given cell.
+	 *
+	 * @param cell cell index
+	 * @param sign 1 to add the rows to the counts, -1 to remove them
+	 */
+	private void updateRows(int cell, int sign) {
+		int[] cellWindows = geometry.getCellWindows();
+		int end = geometry.getCellWindowStart()[cell + 1];
+		for (int x = geometry.getCellWindowStart()[cell]; x < end; x++) {
+			updateRow(cellWindows[x], sign);
+		}
+	}
+
+	/**
+	 * This method flips the bit of the given cell in the bitmasks of
+	 * every row passing through it, for either the AI or the opponent.
+	 *
+	 * @param cell cell index
+	 * @param ai indicates if the piece belongs to the AI
+	 */
+	private void toggleRows(int cell, boolean ai) {
+		int[] masks = ai ? aiMasks : oppMasks;
+		int[] cellWindows = geometry.getCellWindows();
+		int[] cellWindowOffsets = geometry.getCellWindowOffsets();
+		int end = geometry.getCellWindowStart()[cell + 1];
+		for (int x = geometry.getCellWindowStart()[cell]; x < end; x++) {
+			masks[cellWindows[x]] ^= 1 << cellWindowOffsets[x];
+		}
+	}
+
+	/**
+	 * This method adds or removes the feature counts of a single K-length
+	 * row, in the same manner as the eval method counts each row.
+	 *
+	 * @param w window index of the row
+	 * @param sign 1 to add the row to the counts, -1 to remove it
+	 */
+	private void updateRow(int w, int sign) {
+		int win = Integer.bitCount(aiMasks[w]); // Number of AI pieces in the row
+		int lose = Integer.bitCount(oppMasks[w]); // Number of opponent pieces in the row
+		int center = geometry.getWindowCenter()[w];
+		if (lose == 0) {
+			a += sign;
+		}
+		if (win == 0) {
+			b += sign;
+		}
+		cd += sign * center * win;
+		ef += sign * center * lose;
+		if (win == k) {
+			wins += sign;
+		}
+		if (lose == k) {
+			losses += sign;
+		}
+		if (lose == k - 1 && win == 0) {
+			loseThreats += sign;
+		}
+		if (win == k - 1 && lose == 0) {
+			winThreats += sign;
+		}
+		if (geometry.isBlockedThreat(aiMasks[w], oppMasks[w])) {
+			g += sign;
+		}
+	}
+
+	/**
+	 * This method returns the utility value of the tracked board state,
+	 * using the feature counts kept up to date by makeMove and undoMove.
+	 * The result is the same as that of the full evaluation function,
+	 * and the quiescence of the board state is recorded in the same way.
+	 *
+	 * @param lastPlayer player that made the last move on the board state
+	 * @return the utility value for the tracked board state
+	 */
+	public int eval(int lastPlayer) {
+		// Opponent could win in the very next move, so mark state as not quiescent
+		quiet = loseThreats == 0 || opponentTurn == lastPlayer;
+		if (wins > 0) { // AI won; return +infinity
+			return Integer.MAX_VALUE;
+		}
+		if (losses > 0) { // Opponent won; return -infinity
+			return Integer.MIN_VALUE;
+		}
+		return a - b + cd - ef + 100*g;
+	}
+
+	/**
+	 * This method finds the cells of the tracked board state in which the
+	 * given player would complete a row of K pieces: the empty cell of
+	 * every row with K-1 of the player's pieces and none of the other
+	 * player's pieces. Only cells that can be played right away are
+	 * included, so with gravity, a cell above an empty cell is left out.
+	 * These are the only moves that win, or that block a win, on the very
+	 * next move.
+	 *
+	 * @param player player who would complete the rows (1 or 2)
+	 * @param cells array to store the cells in
+	 * @return the number of cells
+	 */
+	public int findThreatCells(int player, int[] cells) {
+		int threats = player == thisPlayerTurn ? winThreats : loseThreats;
+		if (threats == 0) {
+			return 0;
+		}
+		int[] ownMasks = player == thisPlayerTurn ? aiMasks : oppMasks;
+		int[] otherMasks = player == thisPlayerTurn ? oppMasks : aiMasks;
+		int[] windowCells = geometry.getWindowCells();
+		int full = (1 << k) - 1;
+		int n = 0;
+		startThreatCells(geometry.getNumCells());
+		for (int w = 0; w < ownMasks.length; w++) {
+			if (otherMasks[w] == 0 && Integer.bitCount(ownMasks[w]) == k - 1) {
+				int m = Integer.numberOfTrailingZeros(~ownMasks[w] & full);
+				n = addThreatCell(state, windowCells[w * k + m], cells, n);
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * This method finds the cells in which the given player would complete
+	 * a row of K pieces, in the same manner as findThreatCells, but for
+	 * any board state, by scanning every row of the board.
+	 *
+	 * @param state the board state to be checked
+	 * @param player player who would complete the rows (1 or 2)
+	 * @param cells array to store the cells in
+	 * @return the number of cells
+	 */
+	public int findThreatCells(TeamEurekaBitboard state, int player, int[] cells) {
+		TeamEurekaGeometry geometry = state.getGeometry(); // Tables for the board geometry
+		int[] windowCells = geometry.getWindowCells(); // Cells of every row on the board
+		int k = geometry.getkLength(); // Value of K
+		int n = 0;
+		startThreatCells(geometry.getNumCells());
+		for (int w = 0; w < geometry.getNumWindows(); w++) {
+			int own = 0; // Number of the player's pieces in the row
+			int empty = -1; // Empty cell of the row
+			for (int m = 0; m < k; m++) {
+				byte piece = state.getSpace(windowCells[w * k + m]);
+				if (piece == player) {
+					own++;
+				}
+				else if (piece == 0) {
+					empty = windowCells[w * k + m];
+				}
+			}
+			if (own == k - 1 && empty != -1) {
+				n = addThreatCell(state, empty, cells, n);
+			}
+		}
+		return n;
+	}
+
+	private void startThreatCells(int numCells) {
+		if (marks == null || marks.length < numCells) {
+			marks = new int[numCells];
+		}
+		stamp++;
+	}
+
+	private int addThreatCell(TeamEurekaBitboard state, int cell, int[] cells, int n) {
+		int height = state.getHeight();
+		if (marks[cell] != stamp && (!state.gravityEnabled() || cell % height == 0 || !state.isEmpty(cell - 1))) {
+			marks[cell] = stamp;
+			cells[n++] = cell;
+		}
+		return n;
+	}
+
+	// Heuristic Evaluation Function
+	/**
+	 * This method is the heuristic evaluation function. It evaluates
+	 * a given board state for utility. The utility is based on three
+	 * features: number of possible winning rows, number of possible
+	 * losing rows, and number of threat rows blocked by the AI.
+	 * Threat rows consist of a line of K-2 of the opponent's pieces,
+	 * not necessarily connected to each other, and none of the AI's
+	 * pieces. The threat row is blocked whenever the AI places
+	 * a piece in any empty cell in the threat row, preventing
+	 * the opponent from having a guaranteed win. The result is a
+	 * weighted average of the three features. The number of possible
+	 * winning rows has a weight of 1, the number of possible losing
+	 * rows has a weight of -1, and the number of blocked threat rows
+	 * has a weight of 10, so that the heuristic favors moves which
+	 * block the opponent from winning. Also, if the AI has a winning
+	 * row, the method immediately returns +infinity, and if the
+	 * opponent has a winning row, the method immediately returns
+	 * -infinity.
+	 * 
+	 * @param state the board state to be evaluated
+	 * @param lastPlayer player that made the last move on the board state
+	 * @return the utility value for the given board state
+	 */
+	public int eval(TeamEurekaBitboard state, int lastPlayer) {
+		quiet = true;
+		TeamEurekaGeometry geometry = state.getGeometry(); // Tables for the board geometry
+		int[] windowCells = geometry.getWindowCells(); // Cells of every row on the board
+		int[] windowCenter = geometry.getWindowCenter(); // Centrality weight of every row on the board
+		int a = 0; // Number of possible winning rows
+		int b = 0; // Number of possible losing rows
+		int c = 0; // Score of how close player's pieces are to the center
+		int e = 0; // Score of how close opponent's pieces are to the center
+		int g = 0; // Number of blocked threat rows
+		int k = geometry.getkLength(); // Value of K
+		int tempWin = 0; // Number of non-opponent pieces in the row
+		int tempLose = 0; // Number of non-AI pieces in the row
+		int win = 0; // Number of AI pieces in the row
+		int lose = 0; // Number of opponent pieces in the row
+		int aiMask = 0; // Bitmask of AI pieces in the row
+		int oppMask = 0; // Bitmask of opponent pieces in the row
+		// Check every horizontal, vertical and diagonal row for winning and losing rows
+		for (int w = 0; w < geometry.getNumWindows(); w++) {
+			for (int m = 0; m < k; m++) {
+				byte piece = state.getSpace(windowCells[w * k + m]);
+				if (piece != thisPlayerTurn) {
+					// Cell doesn't contain AI piece; Opponent could win
+					tempLose++;
+				}
+				if (piece == thisPlayerTurn || piece == 0) {
+					// Cell doesn't contain opponent piece; AI could win
+					tempWin++;
+				}
+				if (piece == thisPlayerTurn) {
+					// Cell contains AI piece
+					win++;
+					aiMask |= 1 << m; // Store the combination of pieces for row
+					if (win == k) { // AI won; return +infinity
+						return Integer.MAX_VALUE;
+					}
+					// c is max when player's pieces are close to the center
+					// c is min when player's pieces are far from the center
+					c += windowCenter[w];
+				}
+				if (piece == opponentTurn) {
+					// Cell contains opponent piece
+					lose++;
+					oppMask |= 1 << m; // Store the combination of pieces for row
+					if (lose == k) { // Opponent won; return -infinity
+						return Integer.MIN_VALUE;
+					}
+					// e is max when opponent's pieces are close to the center
+					// e is min when opponent's pieces are far from the center
+					e += windowCenter[w];
+				}
+			}
+			if (lose == k - 1 && win == 0 && opponentTurn != lastPlayer) {
+				// Opponent could win in the very next move, so mark state as not quiescent
+				quiet = false;
+			}
+			if (tempWin == k) {
+				// AI has a possible winning row
+				a++;
+			}
+			if (tempLose == k) {
+				// Opponent has a possible winning row
+				b++;
+			}
+			if (geometry.isBlockedThreat(aiMask, oppMask)) {
+				// Blocked threat detected
+				g++;
+			}
+			win = 0;
+			aiMask = 0;
+			oppMask = 0;
+			lose = 0;
+			tempWin = 0;
+			tempLose = 0;
+		}
+		return a - b + c - e + 100*g;
+	}
+}
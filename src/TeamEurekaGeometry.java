@@ -0,0 +1,440 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaGeometry class holds tables that depend only on the shape
+ * and rules of the board: its width, height, value of K, and whether
+ * gravity is enabled. Every K-length row on the board, in all four
+ * directions, is stored as a window of K cell indices in one flat array.
+ * For each cell, there is a list of the windows passing through it,
+ * along with the position of the cell inside each window. Each cell
+ * also has a centrality weight, which is largest at the center of the
+ * board and smallest at the edges.
+ *
+ * The contents of a window are encoded as two bitmasks of K bits, one
+ * for the AI's pieces and one for the opponent's pieces, where bit m
+ * corresponds to the m-th cell of the window. The blocked threat rows
+ * used by the evaluation function are stored as a sorted table of such
+ * encodings, so that matching a window against all of them is a single
+ * lookup that creates no objects.
+ *
+ * Each geometry also has a table of Zobrist keys, one random number for
+ * each player and cell. The random numbers are generated from a fixed
+ * seed, so the same board state always has the same key.
+ *
+ * The symmetries of the board are stored as permutations of the cell
+ * indices. Every board has its left-right mirror image. Without gravity,
+ * the top-bottom mirror image and the half turn are also symmetries, and
+ * a square board has the quarter turns and the two diagonal mirror images
+ * as well, for eight in all. With gravity, only the left-right mirror
+ * image keeps the pieces resting on the bottom, so there are two.
+ * Since a board state and its images share transposition table entries,
+ * the evaluation must give them all the same value. The centrality
+ * weight of a cell is therefore symmetric about the center of the board,
+ * even when the width or height is even. The weight of a window is the
+ * average weight of its cells, which does not depend on which end the
+ * window starts from. The blocked threat rows include the mirror image
+ * of each row.
+ *
+ * For move generation on large boards, each cell has a bit set of the
+ * cells within a given distance of it, in the same layout as the bit
+ * sets of TeamEurekaBitboard. These are built the first time each
+ * distance is asked for.
+ *
+ * The tables are built once for each board geometry, and are cached,
+ * so that every TeamEurekaBitboard and TeamEurekaEvaluator with the same
+ * geometry shares them. The evaluation and win detection code iterates
+ * over these tables instead of recomputing row indices on every call.
+ */
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TeamEurekaGeometry {
+	private static ConcurrentHashMap<String, TeamEurekaGeometry> cache = new ConcurrentHashMap<String, TeamEurekaGeometry>();
+	private final int width; // Number of columns
+	private final int height; // Number of rows
+	private final int kLength; // Value of K
+	private final boolean gravity; // Indicates if pieces drop to the lowest empty row
+	private final int numCells; // Number of cells on the board
+	private final int numWindows; // Number of K-length rows on the board
+	private final int[] windowCells; // Cell indices of each window, K entries per window
+	private final int[] windowCenter; // Centrality weight of each window
+	private final int[] cellCenter; // Centrality weight of each cell
+	private final int[] cellWindowStart; // Start of each cell's entries in cellWindows
+	private final int[] cellWindows; // Windows passing through each cell
+	private final int[] cellWindowOffsets; // Position of the cell inside each of those windows
+	private final long[] threatCodes; // Sorted encodings of all possible blocked threat rows
+	private final long[] zobrist; // Zobrist key of each player's piece in each cell
+	private final int[][] symmetries; // Cell each cell is moved to by each symmetry, starting with the identity
+	private final int[][] inverseSymmetries; // Cell each cell is moved back from by each symmetry
+	private final ConcurrentHashMap<Integer, long[][]> neighbours; // Bit sets of nearby cells for each distance
+
+	private TeamEurekaGeometry(int width, int height, int kLength, boolean gravity) {
+		this.width = width;
+		this.height = height;
+		this.kLength = kLength;
+		this.gravity = gravity;
+		numCells = width * height;
+		cellCenter = new int[numCells];
+		for (int i = 0; i < width; i++) {
+			for (int j = 0; j < height; j++) {
+				// Weights are max when cells are close to the center, and min when cells are far from the center
+				cellCenter[i * height + j] = ((width - 1) - Math.abs(2 * i - (width - 1))) / 2
+						+ ((height - 1) - Math.abs(2 * j - (height - 1))) / 2;
+			}
+		}
+		int horizontal = kLength <= width ? (width - kLength + 1) * height : 0;
+		int vertical = kLength <= height ? width * (height - kLength + 1) : 0;
+		int diagonal = kLength <= width && kLength <= height ? (width - kLength + 1) * (height - kLength + 1) : 0;
+		numWindows = horizontal + vertical + 2 * diagonal;
+		windowCells = new int[numWindows * kLength];
+		windowCenter = new int[numWindows];
+		int w = 0;
+		// Horizontal rows
+		for (int j = 0; j < height; j++) {
+			for (int i = 0; i <= width - kLength; i++) {
+				addWindow(w++, i, j, 1, 0);
+			}
+		}
+		// Vertical rows
+		for (int i = 0; i < width; i++) {
+			for (int j = 0; j <= height - kLength; j++) {
+				addWindow(w++, i, j, 0, 1);
+			}
+		}
+		// Diagonal (up and right) rows
+		for (int i = 0; i <= width - kLength; i++) {
+			for (int j = 0; j <= height - kLength; j++) {
+				addWindow(w++, i, j, 1, 1);
+			}
+		}
+		// Diagonal (up and left) rows
+		for (int i = width - 1; i >= kLength - 1; i--) {
+			for (int j = 0; j <= height - kLength; j++) {
+				addWindow(w++, i, j, -1, 1);
+			}
+		}
+		// Build the list of windows passing through each cell
+		cellWindowStart = new int[numCells + 1];
+		for (int x = 0; x < windowCells.length; x++) {
+			cellWindowStart[windowCells[x] + 1]++;
+		}
+		for (int c = 0; c < numCells; c++) {
+			cellWindowStart[c + 1] += cellWindowStart[c];
+		}
+		cellWindows = new int[windowCells.length];
+		cellWindowOffsets = new int[windowCells.length];
+		int[] next = new int[numCells];
+		for (int x = 0; x < windowCells.length; x++) {
+			int cell = windowCells[x];
+			int index = cellWindowStart[cell] + next[cell]++;
+			cellWindows[index] = x / kLength;
+			cellWindowOffsets[index] = x % kLength;
+		}
+		threatCodes = new long[2 * (kLength + 3)];
+		// Create a list of all possible ways to block a threat row, along with the mirror image of each
+		for (int x = 0; x < kLength; x++) {
+			int aiMask = 0;
+			int oppMask = 0;
+			for (int y = 0; y < kLength; y++) {
+				if (x == y) {
+					aiMask |= 1 << y;
+				}
+				else if (!((y == kLength - 1) || (x == kLength - 1 && y == 0))) {
+					oppMask |= 1 << y;
+				}
+			}
+			threatCodes[x] = encode(aiMask, oppMask);
+			threatCodes[kLength + 3 + x] = encode(reverse(aiMask), reverse(oppMask));
+		}
+		for (int x = kLength; x < kLength + 3; x++) {
+			int aiMask = 0;
+			int oppMask = 0;
+			for (int y = 0; y < kLength; y++) {
+				boolean ai;
+				if (y == 0) {
+					ai = x == kLength || x == kLength + 1;
+				}
+				else if (y == kLength - 1) {
+					ai = x == kLength || x == kLength + 2;
+				}
+				else {
+					ai = false;
+				}
+				if (ai) {
+					aiMask |= 1 << y;
+				}
+				else {
+					oppMask |= 1 << y;
+				}
+			}
+			threatCodes[x] = encode(aiMask, oppMask);
+			threatCodes[kLength + 3 + x] = encode(reverse(aiMask), reverse(oppMask));
+		}
+		Arrays.sort(threatCodes);
+		zobrist = new long[2 * numCells];
+		Random random = new Random(((long) width << 32) ^ ((long) height << 16) ^ kLength);
+		for (int x = 0; x < zobrist.length; x++) {
+			zobrist[x] = random.nextLong();
+		}
+		int numSymmetries = gravity ? 2 : (width == height ? 8 : 4);
+		symmetries = new int[numSymmetries][numCells];
+		inverseSymmetries = new int[numSymmetries][numCells];
+		for (int s = 0; s < numSymmetries; s++) {
+			for (int i = 0; i < width; i++) {
+				for (int j = 0; j < height; j++) {
+					int cell = transform(s, i, j);
+					symmetries[s][i * height + j] = cell;
+					inverseSymmetries[s][cell] = i * height + j;
+				}
+			}
+		}
+		neighbours = new ConcurrentHashMap<Integer, long[][]>();
+	}
+
+	/**
+	 * This method finds the cell that the given symmetry of the board
+	 * moves a cell to. Symmetries 0 to 3 are the identity, the left-right
+	 * mirror image, the top-bottom mirror image and the half turn, and
+	 * symmetries 4 to 7, which only exist on square boards, are the two
+	 * diagonal mirror images and the two quarter turns.
+	 *
+	 * @param s index of the symmetry
+	 * @param i column of the cell
+	 * @param j row of the cell
+	 * @return the cell index the cell is moved to
+	 */
+	private int transform(int s, int i, int j) {
+		int x = i;
+		int y = j;
+		switch (s) {
+			case 1:
+				x = width - 1 - i;
+				break;
+			case 2:
+				y = height - 1 - j;
+				break;
+			case 3:
+				x = width - 1 - i;
+				y = height - 1 - j;
+				break;
+			case 4:
+				x = j;
+				y = i;
+				break;
+			case 5:
+				x = width - 1 - j;
+				y = height - 1 - i;
+				break;
+			case 6:
+				x = j;
+				y = height - 1 - i;
+				break;
+			case 7:
+				x = width - 1 - j;
+				y = i;
+				break;
+		}
+		return x * height + y;
+	}
+
+	/**
+	 * This method combines the two bitmasks describing the contents of
+	 * a window into a single code.
+	 *
+	 * @param aiMask bitmask of the cells containing AI pieces
+	 * @param oppMask bitmask of the cells containing opponent pieces
+	 * @return the code of the window
+	 */
+	private static long encode(int aiMask, int oppMask) {
+		return ((long) aiMask << 32) | oppMask;
+	}
+
+	/**
+	 * This method reverses the order of the K bits of a window bitmask,
+	 * giving the bitmask of the window's mirror image.
+	 *
+	 * @param mask bitmask of a window
+	 * @return the bitmask with its K bits in reverse order
+	 */
+	private int reverse(int mask) {
+		return Integer.reverse(mask) >>> (32 - kLength);
+	}
+
+	/**
+	 * This method checks if the contents of a window match one of the
+	 * blocked threat rows: K-2 or K-1 opponent pieces, with one or two
+	 * AI pieces in the positions that stop the opponent from filling
+	 * the row.
+	 *
+	 * @param aiMask bitmask of the cells containing AI pieces
+	 * @param oppMask bitmask of the cells containing opponent pieces
+	 * @return the truth value of whether the window is a blocked threat row
+	 */
+	public boolean isBlockedThreat(int aiMask, int oppMask) {
+		if (Integer.bitCount(oppMask) < kLength - 2) {
+			return false;
+		}
+		return Arrays.binarySearch(threatCodes, encode(aiMask, oppMask)) >= 0;
+	}
+
+	/**
+	 * This method stores the cells of a window, starting at the given
+	 * cell and stepping in the given direction. The centrality weight
+	 * of a window is the average weight of its cells, so that a window
+	 * and its mirror image have the same weight.
+	 *
+	 * @param w window index
+	 * @param i column of the first cell of the window
+	 * @param j row of the first cell of the window
+	 * @param di column step between cells of the window
+	 * @param dj row step between cells of the window
+	 */
+	private void addWindow(int w, int i, int j, int di, int dj) {
+		for (int m = 0; m < kLength; m++) {
+			windowCells[w * kLength + m] = (i + m * di) * height + (j + m * dj);
+			windowCenter[w] += cellCenter[windowCells[w * kLength + m]];
+		}
+		windowCenter[w] /= kLength;
+	}
+
+	/**
+	 * This method returns the tables for the given board geometry,
+	 * building them if no TeamEurekaGeometry object exists for that
+	 * geometry yet.
+	 *
+	 * @param width number of columns
+	 * @param height number of rows
+	 * @param kLength value of K
+	 * @param gravity indicates if gravity is enabled
+	 * @return the shared tables for the board geometry
+	 */
+	public static TeamEurekaGeometry get(int width, int height, int kLength, boolean gravity) {
+		String key = width + "x" + height + "k" + kLength + (gravity ? "g" : "");
+		TeamEurekaGeometry geometry = cache.get(key);
+		if (geometry == null) {
+			geometry = new TeamEurekaGeometry(width, height, kLength, gravity);
+			TeamEurekaGeometry existing = cache.putIfAbsent(key, geometry);
+			if (existing != null) {
+				geometry = existing;
+			}
+		}
+		return geometry;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getkLength() {
+		return kLength;
+	}
+
+	public boolean gravityEnabled() {
+		return gravity;
+	}
+
+	public int getNumCells() {
+		return numCells;
+	}
+
+	public int getNumWindows() {
+		return numWindows;
+	}
+
+	public int[] getWindowCells() {
+		return windowCells;
+	}
+
+	public int[] getWindowCenter() {
+		return windowCenter;
+	}
+
+	public int[] getCellCenter() {
+		return cellCenter;
+	}
+
+	public int[] getCellWindowStart() {
+		return cellWindowStart;
+	}
+
+	public int[] getCellWindows() {
+		return cellWindows;
+	}
+
+	public int[] getCellWindowOffsets() {
+		return cellWindowOffsets;
+	}
+
+	public long[] getZobrist() {
+		return zobrist;
+	}
+
+	public int getNumSymmetries() {
+		return symmetries.length;
+	}
+
+	public int[][] getSymmetries() {
+		return symmetries;
+	}
+
+	public int[][] getInverseSymmetries() {
+		return inverseSymmetries;
+	}
+
+	/**
+	 * This method returns, for each cell, a bit set of the cells at most
+	 * the given distance away from it, in any direction, not counting
+	 * the cell itself.
+	 *
+	 * @param radius greatest distance, in columns or rows
+	 * @return the bit sets of nearby cells, one for each cell
+	 */
+	public long[][] getNeighbours(int radius) {
+		long[][] masks = neighbours.get(radius);
+		if (masks == null) {
+			masks = new long[numCells][(numCells + 63) >>> 6];
+			for (int i = 0; i < width; i++) {
+				for (int j = 0; j < height; j++) {
+					for (int x = Math.max(0, i - radius); x <= Math.min(width - 1, i + radius); x++) {
+						for (int y = Math.max(0, j - radius); y <= Math.min(height - 1, j + radius); y++) {
+							int cell = x * height + y;
+							if (x != i || y != j) {
+								masks[i * height + j][cell >>> 6] |= 1L << cell;
+							}
+						}
+					}
+				}
+			}
+			long[][] existing = neighbours.putIfAbsent(radius, masks);
+			if (existing != null) {
+				masks = existing;
+			}
+		}
+		return masks;
+	}
+}
@@ -0,0 +1,190 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaMonteCarloSearch class is one thread of the Monte Carlo
+ * tree search, an alternative to the depth-first alpha-beta search for
+ * very large boards and large values of K, where the evaluation function
+ * and a shallow search are least reliable. Instead of evaluating board
+ * states, it plays out games to the end and counts how often each move
+ * wins.
+ *
+ * Each simulation starts at the root of the shared TeamEurekaMonteCarloTree
+ * and selects children down to a leaf, playing their moves on its own
+ * copy of the board state. A leaf that has been visited often enough is
+ * expanded, with one child for each move generated by TeamEurekaBitboard.
+ * From the leaf, the game is played out: a player who can complete a row
+ * does so, a player who must block a row does so, and otherwise a random
+ * move is chosen among the moves near the pieces. The winner of the
+ * playout is then added to every node on the path, and to the RAVE
+ * statistics of the children of those nodes whose moves were played
+ * later in the simulation by the same player.
+ *
+ * The rows each player can complete are found through a
+ * TeamEurekaEvaluator, which updates its row counts with every move, so
+ * checking for them does not require scanning the board.
+ */
+import java.util.SplittableRandom;
+
+public class TeamEurekaMonteCarloSearch implements Runnable {
+	public static final int POLL_INTERVAL = 16; // Number of simulations between clock reads
+	private TeamEurekaMonteCarloTree tree; // Node store shared by every thread
+	private TeamEurekaBitboard position; // Board state that moves are played on
+	private TeamEurekaEvaluator evaluator; // Row counts of the board state
+	private TeamEurekaTimer timer; // Time control shared by every thread
+	private SplittableRandom random; // Source of the random moves of the playouts
+	private int rootPlayer; // Player to move at the root (1 or 2)
+	private int[] path; // Nodes of the current simulation, starting with the root
+	private int[] simulationMoves; // Moves of the current simulation, in the tree and in the playout
+	private int[] moves; // List of moves of the current board state
+	private int[][] marks; // Stamp of the last simulation in which each player played each cell
+	private int stamp; // Stamp of the current simulation
+	private int simulations; // Number of simulations completed
+
+	public TeamEurekaMonteCarloSearch(TeamEurekaMonteCarloTree tree, TeamEurekaBitboard position, int player, TeamEurekaTimer timer,
+			long seed) {
+		this.tree = tree;
+		this.position = new TeamEurekaBitboard(position);
+		this.timer = timer;
+		rootPlayer = player;
+		evaluator = new TeamEurekaEvaluator(player);
+		evaluator.reset(this.position);
+		random = new SplittableRandom(seed);
+		int numCells = position.getWidth() * position.getHeight();
+		path = new int[position.getSpacesLeft() + 1];
+		simulationMoves = new int[position.getSpacesLeft()];
+		moves = new int[position.getSpacesLeft()];
+		marks = new int[2][numCells];
+		stamp = 0;
+	}
+
+	public int getSimulations() {
+		return simulations;
+	}
+
+	/**
+	 * This method runs simulations until the timer stops.
+	 */
+	@Override
+	public void run() {
+		while (!timer.isStopped()) {
+			simulate();
+			if (++simulations % POLL_INTERVAL == 0) {
+				timer.poll();
+			}
+		}
+	}
+
+	/**
+	 * This method runs one simulation: it selects a path down the tree,
+	 * expands the leaf if it has been visited often enough, plays out the
+	 * rest of the game, and adds the result to the nodes on the path.
+	 */
+	public void simulate() {
+		int node = 0;
+		int depth = 0;
+		int player = rootPlayer;
+		path[0] = 0;
+		tree.addVirtualLoss(0);
+		while (position.getWinner() == 0 && position.hasMovesLeft()) {
+			int first = tree.getFirstChild(node);
+			if (first == TeamEurekaMonteCarloTree.LEAF && tree.claim(node)) {
+				tree.expand(node, moves, position.generateMoves(moves));
+				first = tree.getFirstChild(node);
+			}
+			if (first < 0) {
+				break;
+			}
+			node = tree.select(node);
+			tree.addVirtualLoss(node);
+			simulationMoves[depth] = tree.getMove(node);
+			evaluator.makeMove(tree.getMove(node), (byte) player);
+			path[++depth] = node;
+			player = player == 1 ? 2 : 1;
+		}
+		int length = playout(depth, player);
+		int winner = position.getWinner() != 0 ? position.getSpace(position.getLastMove()) : 0;
+		for (int i = length; i > depth; i--) {
+			evaluator.undoMove();
+		}
+		// Add the result to the path, from the leaf up, marking the moves played from each node onwards
+		stamp++;
+		int marked = length;
+		for (int d = depth; d >= 0; d--) {
+			// Player who moved into the node at depth d
+			int mover = (d % 2 == 0) == (rootPlayer == 1) ? 2 : 1;
+			tree.update(path[d], winner == 0 ? 1 : (winner == mover ? 2 : 0));
+			while (marked > d) {
+				marked--;
+				int moveMover = (marked % 2 == 0) == (rootPlayer == 1) ? 1 : 2;
+				marks[moveMover - 1][simulationMoves[marked]] = stamp;
+			}
+			int first = tree.getFirstChild(path[d]);
+			if (first >= 0) {
+				int next = mover == 1 ? 2 : 1; // Player who moves from the node
+				int points = winner == 0 ? 1 : (winner == next ? 2 : 0);
+				int[] played = marks[next - 1];
+				for (int c = first; c < first + tree.getNumChildren(path[d]); c++) {
+					if (played[tree.getMove(c)] == stamp) {
+						tree.updateRave(c, points);
+					}
+				}
+			}
+		}
+		for (int d = depth; d > 0; d--) {
+			evaluator.undoMove();
+		}
+	}
+
+	/**
+	 * This method plays out the game from the current board state, and
+	 * leaves the moves on the board for the caller to take back. A player
+	 * who can complete a row does so, a player who must block a row of
+	 * the other player does so, and otherwise a random move is played.
+	 *
+	 * @param depth number of moves of the simulation made in the tree
+	 * @param player player to move (1 or 2)
+	 * @return the number of moves of the simulation, in the tree and in the playout
+	 */
+	private int playout(int depth, int player) {
+		int length = depth;
+		while (position.getWinner() == 0 && position.hasMovesLeft()) {
+			int opponent = player == 1 ? 2 : 1;
+			int move;
+			int n = evaluator.findThreatCells(player, moves);
+			if (n > 0) {
+				move = moves[0];
+			}
+			else {
+				n = evaluator.findThreatCells(opponent, moves);
+				if (n == 0) {
+					n = position.generateMoves(moves);
+				}
+				move = moves[random.nextInt(n)];
+			}
+			simulationMoves[length++] = move;
+			evaluator.makeMove(move, (byte) player);
+			player = opponent;
+		}
+		return length;
+	}
+}
@@ -0,0 +1,251 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaMonteCarloTree class is the node store of the Monte Carlo
+ * tree search. Nodes are kept in parallel arrays indexed by node number,
+ * instead of as objects, and the children of a node are stored next to
+ * each other, so a node only needs the index of its first child and the
+ * number of children. Node 0 is the root. The arrays are allocated once,
+ * for a fixed number of nodes, and reused for every move; once they are
+ * full, the tree stops growing and leaves are only played out.
+ *
+ * Each node has a visit count and a score, in half points for the player
+ * who made the move leading to it: two for a win, one for a draw. It also
+ * has RAVE (all moves as first) statistics: the same counts for every
+ * simulation where its move was played by the same player later on,
+ * which give an estimate of a move long before it has been visited often.
+ * A child is selected by UCT, on a mix of its own win rate and its RAVE
+ * win rate that moves towards its own win rate as its visits grow.
+ *
+ * The tree is shared by several TeamEurekaMonteCarloSearch threads. The
+ * counts are atomic, and a node is expanded by the first thread to claim
+ * it. Every thread going through a node adds a virtual loss to it, a few
+ * visits without any score, which is taken back when the result of the
+ * simulation is added, so that other threads are steered to other nodes
+ * in the meantime.
+ */
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class TeamEurekaMonteCarloTree {
+	public static final int LEAF = -1; // First child of a node that has not been expanded
+	public static final int EXPANDING = -2; // First child of a node being expanded by a thread
+	public static final int FULL = -3; // First child of a node that could not be expanded because the store was full
+	public static final int VIRTUAL_LOSS = 3; // Visits added to a node while a simulation goes through it
+	public static final int EXPAND_VISITS = 4; // Visits a node needs before it is expanded
+	public static final double EXPLORATION = 0.4; // Weight of the exploration term of UCT
+	public static final double RAVE_EQUIVALENCE = 500; // Visits at which a node's own win rate and its RAVE win rate count equally
+	private int capacity; // Most nodes in the store
+	private AtomicInteger numNodes; // Number of nodes in use
+	private int[] moves; // Cell index of the move leading to each node
+	private int[] numChildren; // Number of children of each node
+	private AtomicIntegerArray firstChild; // Index of the first child of each node, or LEAF, EXPANDING or FULL
+	private AtomicIntegerArray visits; // Number of simulations through each node, including virtual losses
+	private AtomicIntegerArray scores; // Half points won through each node by the player who moved into it
+	private AtomicIntegerArray raveVisits; // Number of simulations where each node's move was played later on
+	private AtomicIntegerArray raveScores; // Half points won in those simulations
+
+	public TeamEurekaMonteCarloTree(int capacity) {
+		this.capacity = capacity;
+		numNodes = new AtomicInteger();
+		moves = new int[capacity];
+		numChildren = new int[capacity];
+		firstChild = new AtomicIntegerArray(capacity);
+		visits = new AtomicIntegerArray(capacity);
+		scores = new AtomicIntegerArray(capacity);
+		raveVisits = new AtomicIntegerArray(capacity);
+		raveScores = new AtomicIntegerArray(capacity);
+		reset();
+	}
+
+	/**
+	 * This method removes every node except a new root, before searching
+	 * for a new move.
+	 */
+	public void reset() {
+		numNodes.set(1);
+		initNode(0, -1);
+	}
+
+	/**
+	 * This method clears the counts of a node, which may have been used
+	 * for a previous move.
+	 *
+	 * @param node index of the node
+	 * @param move cell index of the move leading to the node
+	 */
+	private void initNode(int node, int move) {
+		moves[node] = move;
+		numChildren[node] = 0;
+		visits.set(node, 0);
+		scores.set(node, 0);
+		raveVisits.set(node, 0);
+		raveScores.set(node, 0);
+		firstChild.set(node, LEAF);
+	}
+
+	public int getNumNodes() {
+		return Math.min(numNodes.get(), capacity);
+	}
+
+	public int getMove(int node) {
+		return moves[node];
+	}
+
+	public int getFirstChild(int node) {
+		return firstChild.get(node);
+	}
+
+	public int getNumChildren(int node) {
+		return numChildren[node];
+	}
+
+	public int getVisits(int node) {
+		return visits.get(node);
+	}
+
+	/**
+	 * This method checks if a leaf has been visited often enough to be
+	 * expanded, and if so, claims it for the calling thread, so that no
+	 * other thread expands it at the same time.
+	 *
+	 * @param node index of the leaf
+	 * @return true if the calling thread must now call expand
+	 */
+	public boolean claim(int node) {
+		return visits.get(node) >= EXPAND_VISITS + VIRTUAL_LOSS && firstChild.compareAndSet(node, LEAF, EXPANDING);
+	}
+
+	/**
+	 * This method adds a child for each of the given moves to a node the
+	 * calling thread has claimed. If there is no room left in the store,
+	 * the node is marked as FULL and stays a leaf.
+	 *
+	 * @param node index of the node
+	 * @param childMoves cell indices of the moves
+	 * @param n number of moves
+	 */
+	public void expand(int node, int[] childMoves, int n) {
+		int first = numNodes.getAndAdd(n);
+		if (first + n > capacity) {
+			firstChild.set(node, FULL);
+			return;
+		}
+		for (int i = 0; i < n; i++) {
+			initNode(first + i, childMoves[i]);
+		}
+		numChildren[node] = n;
+		// Setting the first child publishes the children to the other threads
+		firstChild.set(node, first);
+	}
+
+	/**
+	 * This method selects the child of an expanded node to be searched
+	 * next, for the player to move at the node. Each child is valued by
+	 * its win rate, mixed with its RAVE win rate, plus the UCT exploration
+	 * term. A child that has not been visited yet is tried first, in order
+	 * of its RAVE win rate.
+	 *
+	 * @param node index of the node
+	 * @return the index of the selected child
+	 */
+	public int select(int node) {
+		int first = firstChild.get(node);
+		int n = numChildren[node];
+		double logVisits = Math.log(Math.max(1, visits.get(node)));
+		int best = first;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int c = first; c < first + n; c++) {
+			int childVisits = visits.get(c);
+			int childRaveVisits = raveVisits.get(c);
+			double raveRate = childRaveVisits > 0 ? raveScores.get(c) / (2.0 * childRaveVisits) : 0.5;
+			double value;
+			if (childVisits == 0) {
+				value = 2 + raveRate;
+			}
+			else {
+				double rate = scores.get(c) / (2.0 * childVisits);
+				double beta = Math.sqrt(RAVE_EQUIVALENCE / (3 * childVisits + RAVE_EQUIVALENCE));
+				value = (1 - beta) * rate + beta * raveRate + EXPLORATION * Math.sqrt(logVisits / childVisits);
+			}
+			if (value > bestValue) {
+				bestValue = value;
+				best = c;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * This method adds a virtual loss to a node a simulation is going
+	 * through.
+	 *
+	 * @param node index of the node
+	 */
+	public void addVirtualLoss(int node) {
+		visits.addAndGet(node, VIRTUAL_LOSS);
+	}
+
+	/**
+	 * This method adds the result of a simulation to a node, and takes
+	 * back the virtual loss added on the way down.
+	 *
+	 * @param node index of the node
+	 * @param points half points for the player who moved into the node
+	 */
+	public void update(int node, int points) {
+		visits.addAndGet(node, 1 - VIRTUAL_LOSS);
+		scores.addAndGet(node, points);
+	}
+
+	/**
+	 * This method adds the result of a simulation to the RAVE statistics
+	 * of a node.
+	 *
+	 * @param node index of the node
+	 * @param points half points for the player who moved into the node
+	 */
+	public void updateRave(int node, int points) {
+		raveVisits.incrementAndGet(node);
+		raveScores.addAndGet(node, points);
+	}
+
+	/**
+	 * This method returns the move of the most visited child of the root.
+	 *
+	 * @return the cell index of the move, or -1 if the root has no children
+	 */
+	public int getBestMove() {
+		int first = firstChild.get(0);
+		if (first < 0) {
+			return -1;
+		}
+		int best = first;
+		for (int c = first + 1; c < first + numChildren[0]; c++) {
+			if (visits.get(c) > visits.get(best)) {
+				best = c;
+			}
+		}
+		return moves[best];
+	}
+}
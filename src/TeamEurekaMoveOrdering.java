@@ -0,0 +1,177 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaMoveOrdering class decides in which order the depth-first
+ * search tries the moves at each node. Moves are scored, and the scores
+ * are kept in a primitive array next to the moves, instead of sorting
+ * node objects. The move from the transposition table (or the previous
+ * principal variation) is tried first, followed by the killer moves,
+ * which are the last two moves that caused a cutoff at the same ply,
+ * and then the remaining moves in order of their history scores. The
+ * history score of a move for a player grows every time the move causes
+ * a cutoff anywhere in the search, by the square of the remaining depth.
+ *
+ * The next move to try is picked by a selection pass over the moves not
+ * yet tried, so moves that are never reached because of a cutoff are
+ * never sorted.
+ *
+ * The same object is kept from one move of a game to the next, so each
+ * search starts with what the search for the previous move learned.
+ */
+import java.util.Arrays;
+
+public class TeamEurekaMoveOrdering {
+	public static final int FIRST_MOVE_SCORE = Integer.MAX_VALUE; // Score of the hash move
+	public static final int KILLER_SCORE = 1 << 30; // Score of the first killer move
+	public static final int MAX_HISTORY = (1 << 30) - 2; // Highest history score before aging
+	private int[][] killers; // Two killer moves for each ply
+	private int[][] history; // History score for each player and cell
+
+	public TeamEurekaMoveOrdering(int maxPly, int numCells) {
+		killers = new int[maxPly][2];
+		history = new int[2][numCells];
+		clear();
+	}
+
+	/**
+	 * This method removes every killer move and history score, for a
+	 * search that does not follow on from the last one.
+	 */
+	public void clear() {
+		for (int i = 0; i < killers.length; i++) {
+			killers[i][0] = -1;
+			killers[i][1] = -1;
+		}
+		for (int p = 0; p < history.length; p++) {
+			Arrays.fill(history[p], 0);
+		}
+	}
+
+	/**
+	 * This method prepares the killer moves and history scores for a
+	 * search that follows on from the last one, after the given number
+	 * of moves were made. The killer moves are moved up by that many
+	 * plies, since each ply of the new search matches a ply that much
+	 * deeper in the last one, and the history scores are aged.
+	 *
+	 * @param plies number of moves made since the last search
+	 */
+	public void nextSearch(int plies) {
+		for (int i = 0; i < killers.length; i++) {
+			killers[i][0] = i + plies < killers.length ? killers[i + plies][0] : -1;
+			killers[i][1] = i + plies < killers.length ? killers[i + plies][1] : -1;
+		}
+		age();
+	}
+
+	/**
+	 * This method assigns a score to each move at a node, for the given
+	 * player to move.
+	 *
+	 * @param ply distance from the root
+	 * @param player player to move (1 or 2)
+	 * @param moves list of moves
+	 * @param scores array to store the scores of the moves in
+	 * @param n number of moves
+	 * @param firstMove move to be tried first, or -1 if there is none
+	 */
+	public void scoreMoves(int ply, int player, int[] moves, int[] scores, int n, int firstMove) {
+		int[] playerHistory = history[player - 1];
+		int killer1 = ply < killers.length ? killers[ply][0] : -1;
+		int killer2 = ply < killers.length ? killers[ply][1] : -1;
+		for (int i = 0; i < n; i++) {
+			int move = moves[i];
+			if (move == firstMove) {
+				scores[i] = FIRST_MOVE_SCORE;
+			}
+			else if (move == killer1) {
+				scores[i] = KILLER_SCORE;
+			}
+			else if (move == killer2) {
+				scores[i] = KILLER_SCORE - 1;
+			}
+			else {
+				scores[i] = playerHistory[move];
+			}
+		}
+	}
+
+	/**
+	 * This method finds the highest scoring move among the moves from
+	 * index i onwards, and swaps it into index i, so that it is tried next.
+	 *
+	 * @param moves list of moves
+	 * @param scores scores of the moves
+	 * @param i index of the next move to be tried
+	 * @param n number of moves
+	 */
+	public static void selectMove(int[] moves, int[] scores, int i, int n) {
+		int best = i;
+		for (int j = i + 1; j < n; j++) {
+			if (scores[j] > scores[best]) {
+				best = j;
+			}
+		}
+		if (best != i) {
+			int move = moves[i];
+			moves[i] = moves[best];
+			moves[best] = move;
+			int score = scores[i];
+			scores[i] = scores[best];
+			scores[best] = score;
+		}
+	}
+
+	/**
+	 * This method records a move that caused a cutoff, as a killer move
+	 * for the ply and in the history scores of the player who made it.
+	 *
+	 * @param ply distance from the root
+	 * @param player player who made the move (1 or 2)
+	 * @param move move that caused the cutoff
+	 * @param depth remaining depth below the node
+	 */
+	public void recordCutoff(int ply, int player, int move, int depth) {
+		if (ply < killers.length && killers[ply][0] != move) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+		int[] playerHistory = history[player - 1];
+		playerHistory[move] += depth * depth;
+		if (playerHistory[move] > MAX_HISTORY) {
+			age();
+		}
+	}
+
+	/**
+	 * This method halves every history score, so that recent cutoffs
+	 * count for more than old ones.
+	 */
+	public void age() {
+		for (int p = 0; p < history.length; p++) {
+			for (int c = 0; c < history[p].length; c++) {
+				history[p][c] >>= 1;
+			}
+		}
+	}
+}
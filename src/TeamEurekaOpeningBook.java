@@ -0,0 +1,255 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaOpeningBook class holds the moves to play in the first
+ * few moves of a game, which would otherwise be searched from scratch
+ * at a shallow depth, because there is nothing in the transposition
+ * table yet. There is one book file for each board geometry, named
+ * after its width, height, value of K, and whether gravity is enabled,
+ * such as 7x6k4g.book, in the directory given by the teameureka.book
+ * system property.
+ *
+ * A book file is a header followed by a sorted array of fixed-size
+ * records. Each record holds the canonical key of a board state, the
+ * move to play on it as it would be played on the canonical image, and
+ * the depth of the search that chose the move. The file is mapped into
+ * memory with FileChannel.map, and a board state is looked up by binary
+ * search on the mapped buffer, so opening a book reads nothing up front
+ * and the records are never copied onto the heap.
+ *
+ * The book is generated offline by the main method, which searches each
+ * board state for much longer than a game allows. For each player, it
+ * follows the move the search chooses for that player, and every move
+ * generated for the other player, up to the given number of moves.
+ * Board states reached by different orders of moves, or that are mirror
+ * images or rotations of each other, are only searched once.
+ */
+import connectK.BoardModel;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class TeamEurekaOpeningBook {
+	public static final int MAGIC = 0x434B4F42; // First four bytes of a book file
+	public static final int HEADER_SIZE = 16; // Bytes before the first record
+	public static final int RECORD_SIZE = 12; // Bytes in each record: key, move and depth
+	private MappedByteBuffer buffer; // Contents of the book file
+	private int numRecords; // Number of records in the book
+
+	private TeamEurekaOpeningBook(MappedByteBuffer buffer) {
+		this.buffer = buffer;
+		numRecords = buffer.getInt(12);
+	}
+
+	/**
+	 * This method returns the name of the book file for the given board
+	 * geometry.
+	 *
+	 * @param geometry tables for the geometry of the board
+	 * @return the name of the book file
+	 */
+	public static String getFileName(TeamEurekaGeometry geometry) {
+		return geometry.getWidth() + "x" + geometry.getHeight() + "k" + geometry.getkLength() + (geometry.gravityEnabled() ? "g" : "") + ".book";
+	}
+
+	/**
+	 * This method opens the book file for the given board geometry in the
+	 * given directory, by mapping it into memory. A missing file is not an
+	 * error, since most board geometries do not have a book.
+	 *
+	 * @param directory directory holding the book files
+	 * @param geometry tables for the geometry of the board
+	 * @return the opening book, or null if there is no valid book file
+	 */
+	public static TeamEurekaOpeningBook open(String directory, TeamEurekaGeometry geometry) {
+		Path path = Paths.get(directory, getFileName(geometry));
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE) {
+				return null;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != geometry.getWidth() || buffer.getShort(6) != geometry.getHeight()
+					|| buffer.getShort(8) != geometry.getkLength() || buffer.getShort(10) != (geometry.gravityEnabled() ? 1 : 0)
+					|| channel.size() != HEADER_SIZE + (long) buffer.getInt(12) * RECORD_SIZE) {
+				return null;
+			}
+			return new TeamEurekaOpeningBook(buffer);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	public int getNumRecords() {
+		return numRecords;
+	}
+
+	/**
+	 * This method looks up the given board state in the book. The board
+	 * state is found by its canonical key, and the move stored for it is
+	 * mapped back from the canonical image. The move is only returned if
+	 * it can be played on the board state.
+	 *
+	 * @param position current board state
+	 * @return the cell index of the book move, or -1 if the board state is not in the book
+	 */
+	public int lookup(TeamEurekaBitboard position) {
+		int symmetry = position.getCanonicalSymmetry();
+		long key = position.getKey(symmetry);
+		int low = 0;
+		int high = numRecords - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long midKey = buffer.getLong(HEADER_SIZE + mid * RECORD_SIZE);
+			if (midKey < key) {
+				low = mid + 1;
+			}
+			else if (midKey > key) {
+				high = mid - 1;
+			}
+			else {
+				int move = position.fromSymmetry(buffer.getShort(HEADER_SIZE + mid * RECORD_SIZE + 8) & 0xFFFF, symmetry);
+				int x = move / position.getHeight();
+				int y = move % position.getHeight();
+				if (!position.isEmpty(move) || position.getPlayableCell(x, y) != move) {
+					return -1;
+				}
+				return move;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * This method generates a book file by searching every board state
+	 * in the book for a fixed time. The arguments are the width, height,
+	 * value of K, whether gravity is enabled (true or false), the number
+	 * of moves covered by the book, the time to search each board state
+	 * in milliseconds, and optionally the directory to write the book to.
+	 *
+	 * @param args command line arguments
+	 * @throws IOException if the book file cannot be written
+	 */
+	@SuppressWarnings("deprecation")
+	public static void main(String[] args) throws IOException {
+		if (args.length < 6) {
+			System.err.println("Usage: java TeamEurekaOpeningBook width height k gravity moves milliseconds [directory]");
+			System.exit(1);
+		}
+		int width = Integer.parseInt(args[0]);
+		int height = Integer.parseInt(args[1]);
+		int kLength = Integer.parseInt(args[2]);
+		boolean gravity = Boolean.parseBoolean(args[3]);
+		int plies = Integer.parseInt(args[4]);
+		int millis = Integer.parseInt(args[5]);
+		String directory = args.length > 6 ? args[6] : System.getProperty("teameureka.book", "book");
+		TeamEurekaBitboard position = new TeamEurekaBitboard(BoardModel.newBoard(width, height, kLength, gravity));
+		position.setRadius(TeamEurekaBitboard.getDefaultRadius(width * height));
+		TeamEurekaTranspositionTable table = new TeamEurekaTranspositionTable(Integer.getInteger("teameureka.hash", 16));
+		TreeMap<Long, Integer> entries = new TreeMap<Long, Integer>(); // Move and depth of each board state, by canonical key
+		for (int side = 1; side <= 2; side++) {
+			// Values in the table are for the side being searched for, so they cannot be shared between sides
+			table.clear();
+			analyse(position, 0, 1, side, plies, millis, table, entries, new HashSet<Long>());
+		}
+		Path path = Paths.get(directory, getFileName(position.getGeometry()));
+		Files.createDirectories(path.getParent());
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile())))) {
+			out.writeInt(MAGIC);
+			out.writeShort(width);
+			out.writeShort(height);
+			out.writeShort(kLength);
+			out.writeShort(gravity ? 1 : 0);
+			out.writeInt(entries.size());
+			for (Map.Entry<Long, Integer> entry : entries.entrySet()) {
+				out.writeLong(entry.getKey());
+				out.writeShort(entry.getValue() & 0xFFFF);
+				out.writeShort(entry.getValue() >>> 16);
+			}
+		}
+		System.out.println("Wrote " + entries.size() + " board states to " + path);
+	}
+
+	/**
+	 * This method adds the board states below the current one to the book,
+	 * for the given player. If it is that player's turn, the board state
+	 * is searched, its best move is added to the book, and only that move
+	 * is followed. Otherwise, every move generated for the other player
+	 * is followed. Board states already visited are skipped.
+	 *
+	 * @param position current board state
+	 * @param ply number of moves made since the empty board
+	 * @param player player to move (1 or 2)
+	 * @param side player the book moves are chosen for (1 or 2)
+	 * @param plies number of moves covered by the book
+	 * @param millis time to search each board state, in milliseconds
+	 * @param table transposition table used by the searches for the player
+	 * @param entries book entries found so far
+	 * @param visited canonical keys of the board states already visited
+	 */
+	private static void analyse(TeamEurekaBitboard position, int ply, int player, int side, int plies, int millis,
+			TeamEurekaTranspositionTable table, TreeMap<Long, Integer> entries, HashSet<Long> visited) {
+		if (ply >= plies || position.getWinner() != 0 || !position.hasMovesLeft() || !visited.add(position.getCanonicalKey())) {
+			return;
+		}
+		int next = player == 1 ? 2 : 1;
+		if (player == side) {
+			table.newSearch();
+			TeamEurekaBitboard copy = new TeamEurekaBitboard(position);
+			TeamEurekaSearch search = new TeamEurekaSearch(copy, new TeamEurekaEvaluator(side), table,
+					new TeamEurekaMoveOrdering(copy.getSpacesLeft() + 1, copy.getWidth() * copy.getHeight()), side);
+			search.setTimer(new TeamEurekaTimer(millis), 0);
+			search.run();
+			int move = search.getCompletedMove();
+			int symmetry = position.getCanonicalSymmetry();
+			entries.put(position.getKey(symmetry), position.toSymmetry(move, symmetry) | (search.getCompletedDepth() << 16));
+			System.out.println("Move " + (ply + 1) + ": " + position.toPoint(move) + " at depth " + search.getCompletedDepth());
+			position.makeMove(move, (byte) player);
+			analyse(position, ply + 1, next, side, plies, millis, table, entries, visited);
+			position.undoMove();
+		}
+		else {
+			int[] moves = new int[position.getSpacesLeft()];
+			int n = position.generateMoves(moves);
+			for (int i = 0; i < n; i++) {
+				position.makeMove(moves[i], (byte) player);
+				analyse(position, ply + 1, next, side, plies, millis, table, entries, visited);
+				position.undoMove();
+			}
+		}
+	}
+}
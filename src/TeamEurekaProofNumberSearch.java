@@ -0,0 +1,447 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaProofNumberSearch class tries to prove that a player can
+ * force a win from a board state, or to disprove it, using depth-first
+ * proof-number search (df-pn). Nodes where the attacker is to move are
+ * OR nodes, which are proven if any child is, and nodes where the
+ * defender is to move are AND nodes, which are proven only if every
+ * child is. A draw counts as a disproof.
+ *
+ * Each node has a proof number, the least number of leaves that must be
+ * proven to prove it, and a disproof number, the same for disproving it.
+ * The search always goes down to the most proving node: below an OR node
+ * the child with the smallest proof number, and below an AND node the
+ * child with the smallest disproof number. Instead of keeping a tree, it
+ * goes down depth-first, and only comes back up once the proof or
+ * disproof number of a node reaches a threshold given by its parent,
+ * which happens when another node has become more promising.
+ *
+ * The proof and disproof numbers of the nodes are kept in a node store,
+ * a hash table of primitive arrays indexed by the canonical keys of the
+ * board states, so transpositions and symmetric board states share one
+ * entry. Each entry also records how many nodes were searched below it.
+ * When the store is full, it is garbage collected: the entries that took
+ * the least work are removed, which are mostly nodes settled right away,
+ * such as immediate wins, and cost little to search again.
+ *
+ * Every empty cell is a move, since the defender's moves must all be
+ * refuted. If the attacker can complete a row, the node is proven, and
+ * if the defender can, the only move searched is the block. The search
+ * stops after a node budget, or when its timer runs out.
+ *
+ * The main method runs the search as an analysis tool on a board state
+ * given by a list of moves.
+ */
+import connectK.BoardModel;
+
+import java.util.Arrays;
+
+public class TeamEurekaProofNumberSearch {
+	public static final int INFINITY = Integer.MAX_VALUE / 2; // Proof or disproof number of a settled node
+	public static final int PROVEN = 1; // Result of a search that proved a win
+	public static final int DISPROVEN = -1; // Result of a search that disproved a win
+	public static final int UNKNOWN = 0; // Result of a search that ran out of nodes or time
+	public static final int PROBE_LIMIT = 8; // Slots tried for each key in the node store
+	public static final double TIME_SHARE = 0.3; // Share of the time for a move given to the search
+	private TeamEurekaBitboard position; // Board state that moves are played on
+	private TeamEurekaTimer timer; // Time control for the search
+	private long maxNodes; // Most nodes to search
+	private long nodes; // Number of nodes searched
+	private boolean stopped; // Indicates if the node budget or time ran out
+	private int attacker; // Player trying to win (1 or 2)
+	private int toMove; // Player to move at the root (1 or 2)
+	private int[][] moveLists; // List of moves for each ply of the current path
+	private long[][] childKeys; // Canonical key of each child for each ply, or 0 if the game is over after the move
+	private boolean[][] childWins; // Indicates if each move for each ply wins the game, rather than filling the board
+	private long[] keys; // Canonical key of each entry of the node store, or 0 if the slot is empty
+	private int[] proofNumbers; // Proof number of each entry
+	private int[] disproofNumbers; // Disproof number of each entry
+	private long[] work; // Number of nodes searched below each entry
+	private int mask; // Number of slots minus one
+	private int used; // Number of slots in use
+	private int collections; // Number of times the node store was garbage collected
+
+	/**
+	 * This constructor creates a search for boards with the given number
+	 * of cells, with a node store that fits in about the given number of
+	 * megabytes. The same search, and its node store, can be used for
+	 * any number of proofs, each started with reset.
+	 *
+	 * @param numCells number of cells on the board
+	 * @param megabytes size of the node store in megabytes
+	 */
+	public TeamEurekaProofNumberSearch(int numCells, int megabytes) {
+		moveLists = new int[numCells + 1][numCells];
+		childKeys = new long[numCells + 1][numCells];
+		childWins = new boolean[numCells + 1][numCells];
+		long slots = Math.max(PROBE_LIMIT, ((long) megabytes << 20) / 24);
+		int size = Integer.highestOneBit((int) Math.min(slots, 1 << 28));
+		keys = new long[size];
+		proofNumbers = new int[size];
+		disproofNumbers = new int[size];
+		work = new long[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * This method prepares the search for a new proof on a copy of the
+	 * given board state, and empties the node store, since the proof and
+	 * disproof numbers of one proof do not hold for another attacker or
+	 * board state.
+	 *
+	 * @param position board state to be searched
+	 * @param maxNodes most nodes to search
+	 * @param timer time control for the search
+	 */
+	public void reset(TeamEurekaBitboard position, long maxNodes, TeamEurekaTimer timer) {
+		this.position = new TeamEurekaBitboard(position);
+		this.position.setRadius(0);
+		this.maxNodes = maxNodes;
+		this.timer = timer;
+		Arrays.fill(keys, 0);
+		Arrays.fill(work, 0);
+		used = 0;
+		collections = 0;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public int getCollections() {
+		return collections;
+	}
+
+	/**
+	 * This method tries to prove that the given player can force a win.
+	 * If the other player is to move, the root is an AND node, so a proof
+	 * shows that the board state is lost for the player to move.
+	 *
+	 * @param player player trying to win (1 or 2)
+	 * @param playerToMove player to move (1 or 2)
+	 * @return PROVEN, DISPROVEN, or UNKNOWN if the search was stopped first
+	 */
+	public int prove(int player, int playerToMove) {
+		attacker = player;
+		toMove = playerToMove;
+		nodes = 0;
+		stopped = false;
+		search(0, INFINITY - 1, INFINITY - 1);
+		int slot = find(position.getCanonicalKey());
+		if (slot >= 0 && proofNumbers[slot] == 0) {
+			return PROVEN;
+		}
+		if (slot >= 0 && disproofNumbers[slot] == 0) {
+			return DISPROVEN;
+		}
+		return UNKNOWN;
+	}
+
+	/**
+	 * This method returns a winning move at the root, after prove has
+	 * returned PROVEN with the attacker to move: a move whose board state
+	 * is proven.
+	 *
+	 * @return the cell index of the winning move, or -1 if none is known
+	 */
+	public int getWinningMove() {
+		int[] moves = moveLists[0];
+		int n = position.generateMoves(moves);
+		for (int i = 0; i < n; i++) {
+			position.makeMove(moves[i], (byte) attacker);
+			boolean won = position.getWinner() == attacker;
+			int slot = find(position.getCanonicalKey());
+			position.undoMove();
+			if (won || (slot >= 0 && proofNumbers[slot] == 0)) {
+				return moves[i];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * This method searches below the current board state until its proof
+	 * number reaches the proof threshold, or its disproof number reaches
+	 * the disproof threshold, and stores both in the node store.
+	 *
+	 * @param ply distance from the root
+	 * @param proofThreshold proof threshold of the node
+	 * @param disproofThreshold disproof threshold of the node
+	 */
+	private void search(int ply, int proofThreshold, int disproofThreshold) {
+		boolean orNode = (ply % 2 == 0) == (toMove == attacker);
+		int player = orNode ? attacker : (attacker == 1 ? 2 : 1);
+		int opponent = player == 1 ? 2 : 1;
+		long key = position.getCanonicalKey();
+		long startNodes = nodes;
+		int[] moves = moveLists[ply];
+		int n = position.generateMoves(moves);
+		int threat = -1;
+		for (int i = 0; i < n; i++) {
+			if (completesRow(moves[i], player)) {
+				// Player to move wins at once
+				store(key, orNode ? 0 : INFINITY, orNode ? INFINITY : 0, 1);
+				return;
+			}
+			if (threat == -1 && completesRow(moves[i], opponent)) {
+				threat = moves[i];
+			}
+		}
+		if (threat != -1) {
+			moves[0] = threat;
+			n = 1;
+		}
+		long[] children = childKeys[ply];
+		boolean[] wins = childWins[ply];
+		for (int i = 0; i < n; i++) {
+			position.makeMove(moves[i], (byte) player);
+			wins[i] = position.getWinner() != 0;
+			children[i] = wins[i] || !position.hasMovesLeft() ? 0 : position.getCanonicalKey();
+			position.undoMove();
+		}
+		while (true) {
+			if (++nodes >= maxNodes || ((nodes & (TeamEurekaTimer.CHECK_INTERVAL - 1)) == 0 && timer.poll()) || timer.isStopped()) {
+				stopped = true;
+			}
+			// Work out the proof and disproof numbers from the children
+			int proof = orNode ? INFINITY : 0;
+			int disproof = orNode ? 0 : INFINITY;
+			int best = -1;
+			int bestProof = 0;
+			int bestDisproof = 0;
+			int second = INFINITY;
+			for (int i = 0; i < n; i++) {
+				int childProof;
+				int childDisproof;
+				if (wins[i]) {
+					childProof = orNode ? 0 : INFINITY;
+					childDisproof = orNode ? INFINITY : 0;
+				}
+				else if (children[i] == 0) {
+					// Draw
+					childProof = INFINITY;
+					childDisproof = 0;
+				}
+				else {
+					int slot = find(children[i]);
+					childProof = slot >= 0 ? proofNumbers[slot] : 1;
+					childDisproof = slot >= 0 ? disproofNumbers[slot] : 1;
+				}
+				if (orNode) {
+					disproof = Math.min(INFINITY, disproof + childDisproof);
+					if (childProof < proof) {
+						second = proof;
+						proof = childProof;
+						best = i;
+						bestProof = childProof;
+						bestDisproof = childDisproof;
+					}
+					else if (childProof < second) {
+						second = childProof;
+					}
+				}
+				else {
+					proof = Math.min(INFINITY, proof + childProof);
+					if (childDisproof < disproof) {
+						second = disproof;
+						disproof = childDisproof;
+						best = i;
+						bestProof = childProof;
+						bestDisproof = childDisproof;
+					}
+					else if (childDisproof < second) {
+						second = childDisproof;
+					}
+				}
+			}
+			if (proof >= proofThreshold || disproof >= disproofThreshold || stopped) {
+				store(key, proof, disproof, nodes - startNodes);
+				return;
+			}
+			int childProofThreshold;
+			int childDisproofThreshold;
+			if (orNode) {
+				childProofThreshold = Math.min(proofThreshold, second == INFINITY ? INFINITY - 1 : second + 1);
+				childDisproofThreshold = disproofThreshold - disproof + bestDisproof;
+			}
+			else {
+				childProofThreshold = proofThreshold - proof + bestProof;
+				childDisproofThreshold = Math.min(disproofThreshold, second == INFINITY ? INFINITY - 1 : second + 1);
+			}
+			position.makeMove(moves[best], (byte) player);
+			search(ply + 1, childProofThreshold, childDisproofThreshold);
+			position.undoMove();
+		}
+	}
+
+	/**
+	 * This method checks if a piece of the given player at the specified
+	 * cell would complete a row.
+	 *
+	 * @param cell cell index of the piece
+	 * @param player player the piece belongs to (1 or 2)
+	 * @return the truth value of whether the piece completes a row
+	 */
+	private boolean completesRow(int cell, int player) {
+		position.makeMove(cell, (byte) player);
+		boolean won = position.getWinner() == player;
+		position.undoMove();
+		return won;
+	}
+
+	/**
+	 * This method finds the slot of the node store holding the given key.
+	 *
+	 * @param key canonical key of the board state
+	 * @return the slot, or -1 if the board state is not in the node store
+	 */
+	private int find(long key) {
+		if (key == 0) {
+			key = 1;
+		}
+		for (int i = 0; i < PROBE_LIMIT; i++) {
+			int slot = (int) (key + i) & mask;
+			if (keys[slot] == key) {
+				return slot;
+			}
+			if (keys[slot] == 0) {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * This method stores the proof and disproof numbers of a board state.
+	 * If every slot for the key is taken, the node store is garbage
+	 * collected first, and if that does not free one of them, the entry
+	 * with the least work among them is replaced.
+	 *
+	 * @param key canonical key of the board state
+	 * @param proof proof number of the board state
+	 * @param disproof disproof number of the board state
+	 * @param nodesSearched number of nodes searched below the board state
+	 */
+	private void store(long key, int proof, int disproof, long nodesSearched) {
+		if (key == 0) {
+			key = 1;
+		}
+		if (used > mask - (mask >> 3)) {
+			collectGarbage();
+		}
+		int victim = -1;
+		for (int i = 0; i < PROBE_LIMIT; i++) {
+			int slot = (int) (key + i) & mask;
+			if (keys[slot] == key || keys[slot] == 0) {
+				if (keys[slot] == 0) {
+					used++;
+				}
+				victim = slot;
+				break;
+			}
+			if (victim == -1 || work[slot] < work[victim]) {
+				victim = slot;
+			}
+		}
+		keys[victim] = key;
+		proofNumbers[victim] = proof;
+		disproofNumbers[victim] = disproof;
+		work[victim] = nodesSearched;
+	}
+
+	/**
+	 * This method removes the entries with the least work from the node
+	 * store, until at most half of it is in use, and then puts the entries
+	 * left back in their first free slots, so that find still reaches them.
+	 */
+	private void collectGarbage() {
+		collections++;
+		long[] sorted = Arrays.copyOf(work, work.length);
+		Arrays.sort(sorted);
+		long threshold = sorted[sorted.length - used / 2]; // Least work of an entry that is kept
+		long[] oldKeys = keys;
+		int[] oldProofNumbers = proofNumbers;
+		int[] oldDisproofNumbers = disproofNumbers;
+		long[] oldWork = work;
+		keys = new long[oldKeys.length];
+		proofNumbers = new int[oldKeys.length];
+		disproofNumbers = new int[oldKeys.length];
+		work = new long[oldKeys.length];
+		used = 0;
+		for (int slot = 0; slot < oldKeys.length; slot++) {
+			if (oldKeys[slot] != 0 && oldWork[slot] > threshold) {
+				for (int i = 0; i < PROBE_LIMIT; i++) {
+					int newSlot = (int) (oldKeys[slot] + i) & mask;
+					if (keys[newSlot] == 0) {
+						keys[newSlot] = oldKeys[slot];
+						proofNumbers[newSlot] = oldProofNumbers[slot];
+						disproofNumbers[newSlot] = oldDisproofNumbers[slot];
+						work[newSlot] = oldWork[slot];
+						used++;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method runs the search as an analysis tool. The arguments are
+	 * the width, height, value of K, whether gravity is enabled (true or
+	 * false), the node budget, the size of the node store in megabytes,
+	 * and then the moves made so far, each as a column and a row separated
+	 * by a comma, starting with player 1. The result is for the player to
+	 * move.
+	 *
+	 * @param args command line arguments
+	 */
+	@SuppressWarnings("deprecation")
+	public static void main(String[] args) {
+		if (args.length < 6) {
+			System.err.println("Usage: java TeamEurekaProofNumberSearch width height k gravity nodes megabytes [x,y ...]");
+			System.exit(1);
+		}
+		BoardModel state = BoardModel.newBoard(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+				Boolean.parseBoolean(args[3]));
+		TeamEurekaBitboard position = new TeamEurekaBitboard(state);
+		byte player = 1;
+		for (int i = 6; i < args.length; i++) {
+			String[] point = args[i].split(",");
+			position.makeMove(position.getPlayableCell(Integer.parseInt(point[0]), Integer.parseInt(point[1])), player);
+			player = (byte) (player == 1 ? 2 : 1);
+		}
+		System.out.print(position);
+		long start = System.currentTimeMillis();
+		TeamEurekaProofNumberSearch search = new TeamEurekaProofNumberSearch(position.getWidth() * position.getHeight(),
+				Integer.parseInt(args[5]));
+		search.reset(position, Long.parseLong(args[4]), new TeamEurekaTimer(Integer.MAX_VALUE));
+		int result = search.prove(player, player);
+		String outcome = result == PROVEN ? "win" : result == DISPROVEN ? "no win" : "unknown";
+		System.out.println("Player " + player + " to move: " + outcome + " (" + search.getNodes() + " nodes, "
+				+ search.getCollections() + " collections, " + (System.currentTimeMillis() - start) + " ms)");
+		if (result == PROVEN) {
+			System.out.println("Winning move: " + position.toPoint(search.getWinningMove()));
+		}
+	}
+}
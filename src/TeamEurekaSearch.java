@@ -0,0 +1,622 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaSearch class performs depth-first alpha-beta search
+ * on a single mutable TeamEurekaBitboard. Instead of building a game
+ * tree, each move is played with makeMove before searching below it
+ * and taken back with undoMove afterwards, so only the moves on the
+ * current path are kept in memory. The memory used by the search is
+ * therefore proportional to the depth, not to the size of the tree.
+ *
+ * Moves are played through the TeamEurekaEvaluator, which updates its
+ * feature counts for each move, so that evaluating a board state does
+ * not require scanning the whole board.
+ *
+ * Since there is no tree to keep heuristic values in, the moves at the
+ * root are kept sorted by their values from the previous depth limit.
+ * At every other node, moves are ordered by a TeamEurekaMoveOrdering
+ * object: the principal variation from the previous depth limit, or
+ * elsewhere the best move stored in the transposition table, comes
+ * first, followed by killer moves and moves with high history scores.
+ *
+ * The result of searching each board state is stored in a
+ * TeamEurekaTranspositionTable. When the same board state is reached
+ * again, the stored value is used in place of a new search if it was
+ * searched at least as deep, or narrows the alpha-beta window otherwise.
+ * Board states are stored under their canonical keys, so mirror images
+ * and rotations of a board state share one entry.
+ *
+ * The search is a principal variation search. At every node, the first
+ * child is searched with the full alpha-beta window, and the remaining
+ * children with a null window, which only shows whether they are better
+ * than the first child. A child is searched again with the full window
+ * only if it turns out to be better. At the root, each depth limit is
+ * first searched with an aspiration window centered on the value from
+ * the previous depth limit, and the window is widened and the depth
+ * limit searched again if the value falls outside of it.
+ *
+ * On small boards with a TeamEurekaTablebase, board states with few
+ * enough empty cells are looked up in the tablebase instead of being
+ * searched or evaluated, since their exact values are known.
+ *
+ * Several TeamEurekaSearch objects can search the same board state in
+ * parallel, each on its own copy of the board state, while sharing one
+ * transposition table (Lazy SMP). Helper searches are run as Runnable
+ * objects on other threads, and do iterative deepening on their own
+ * until they are stopped. Results found by any thread are stored in the
+ * shared table, so the other threads can reuse them.
+ *
+ * If statistics are enabled, each search counts its nodes, transposition
+ * table hits and cutoffs in its own array of counters, which is read by
+ * TeamEurekaStatistics once the search is done with it.
+ */
+public class TeamEurekaSearch implements Runnable {
+	public static final int ASPIRATION_WINDOW = 50; // Initial half-width of the aspiration window
+	public static final int QUIESCENCE_DEPTH = 16; // Most forced moves searched past the depth limit
+	private TeamEurekaBitboard position; // Board state that moves are played on
+	private TeamEurekaEvaluator evaluator; // Heuristic evaluation function
+	private TeamEurekaTranspositionTable table; // Results of previously searched board states
+	private TeamEurekaTablebase tablebase; // Exact values of board states with few empty cells, or null
+	private int thisPlayerTurn; // Player number for TeamEurekaAI (1 or 2)
+	private int opponentTurn; // Player number for other player (1 or 2)
+	private int[][] moveLists; // List of moves for each ply of the current path
+	private int[][] moveScores; // Ordering scores of the moves for each ply of the current path
+	private TeamEurekaMoveOrdering ordering; // Killer moves and history scores
+	private int[][] pv; // Principal variation found below each ply
+	private int[] pvLength; // Ply at which the principal variation of each ply ends
+	private int[] previousPV; // Principal variation from the previous depth limit
+	private int previousPVLength; // Length of the principal variation from the previous depth limit
+	private boolean followPV; // Indicates if the current path follows the previous principal variation
+	private int[] rootMoves; // Moves at the root, ordered by value
+	private int[] rootScores; // Values of the moves at the root from the last depth limit
+	private int numRootMoves; // Number of moves at the root
+	private int bestScore; // Value of the best move at the root from the last depth limit
+	private boolean hasBestScore; // Indicates if a depth limit has been completed
+	private TeamEurekaTimer timer; // Time control shared by every thread searching the move
+	private int nodes; // Number of nodes visited, for deciding when to read the clock
+	private boolean timeOver; // Indicates if time ran out during the last search
+	private int depthOffset; // Extra depth searched by a helper search at each depth limit
+	private int completedDepth; // Deepest depth limit completed by run
+	private int completedMove; // Best move from the deepest depth limit completed by run
+	private long[] counters; // Search statistics counters, or null if statistics are disabled
+
+	public TeamEurekaSearch(TeamEurekaBitboard position, TeamEurekaEvaluator evaluator, TeamEurekaTranspositionTable table,
+			TeamEurekaMoveOrdering ordering, int player) {
+		this.position = position;
+		this.evaluator = evaluator;
+		this.table = table;
+		this.ordering = ordering;
+		evaluator.reset(position);
+		thisPlayerTurn = player;
+		opponentTurn = thisPlayerTurn == 1 ? 2 : 1;
+		int maxPly = position.getSpacesLeft() + 1;
+		moveLists = new int[maxPly][position.getSpacesLeft()];
+		moveScores = new int[maxPly][position.getSpacesLeft()];
+		pv = new int[maxPly][maxPly];
+		pvLength = new int[maxPly];
+		previousPV = new int[maxPly];
+		previousPVLength = 0;
+		rootMoves = new int[position.getSpacesLeft()];
+		rootScores = new int[position.getSpacesLeft()];
+		numRootMoves = generateMoves(rootMoves);
+		timeOver = false;
+		hasBestScore = false;
+		completedDepth = 0;
+		completedMove = numRootMoves > 0 ? rootMoves[0] : -1;
+		if (TeamEurekaStatistics.ENABLED) {
+			counters = new long[TeamEurekaStatistics.NUM_COUNTERS];
+		}
+	}
+
+	public int getNumRootMoves() {
+		return numRootMoves;
+	}
+
+	public int getRootMove(int i) {
+		return rootMoves[i];
+	}
+
+	public int getBestScore() {
+		return bestScore;
+	}
+
+	public boolean isTimeOver() {
+		return timeOver;
+	}
+
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+	public int getCompletedMove() {
+		return completedMove;
+	}
+
+	public long[] getCounters() {
+		return counters;
+	}
+
+	/**
+	 * This method moves the given move to the front of the moves at the
+	 * root, so that it is searched first, for example when it is the best
+	 * move stored in the transposition table by an earlier search.
+	 *
+	 * @param move cell index of the move
+	 * @return true if the move is one of the moves at the root
+	 */
+	public boolean preferRootMove(int move) {
+		for (int i = 0; i < numRootMoves; i++) {
+			if (rootMoves[i] == move) {
+				System.arraycopy(rootMoves, 0, rootMoves, 1, i);
+				rootMoves[0] = move;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * This method sets the timer that decides when the search stops, and
+	 * how much deeper than each depth limit a helper search goes. Helpers
+	 * with different depth offsets spread out over more of the game tree.
+	 *
+	 * @param timer time control for the move
+	 * @param depthOffset extra depth for each depth limit
+	 */
+	public void setTimer(TeamEurekaTimer timer, int depthOffset) {
+		this.timer = timer;
+		this.depthOffset = depthOffset;
+	}
+
+	public void setTablebase(TeamEurekaTablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+
+	/**
+	 * This method performs iterative deepening as a helper search, until
+	 * time runs out, the search is stopped, or the whole game tree has
+	 * been searched. The best move from the deepest completed depth limit
+	 * is recorded.
+	 */
+	@Override
+	public void run() {
+		int limit = 1;
+		while (!timer.isStopped() && limit + depthOffset <= position.getSpacesLeft()) {
+			int move = search(limit + depthOffset);
+			if (timeOver) {
+				break;
+			}
+			completedDepth = limit + depthOffset;
+			completedMove = move;
+			limit++;
+		}
+	}
+
+	/**
+	 * This method fills the given array with the moves to be searched on
+	 * the current board state, as generated by TeamEurekaBitboard.
+	 *
+	 * @param moves array to store the moves in
+	 * @return the number of moves
+	 */
+	public int generateMoves(int[] moves) {
+		return position.generateMoves(moves);
+	}
+
+	/**
+	 * This method searches the current board state to the specified depth
+	 * and returns the best move for the AI. The search starts with an
+	 * aspiration window centered on the value from the previous depth
+	 * limit. If the value falls below or above the window, the window is
+	 * widened on that side, four times as much each time, and the depth
+	 * limit is searched again. Values that mean a player has won are
+	 * always searched with the full window. If time runs out, the
+	 * timeOver flag is set and the result of this search should be
+	 * discarded.
+	 *
+	 * @param depth depth limit of the search
+	 * @return the cell index of the best move, or -1 if time ran out
+	 */
+	public int search(int depth) {
+		long alpha = Integer.MIN_VALUE;
+		long beta = Integer.MAX_VALUE;
+		long delta = ASPIRATION_WINDOW;
+		if (hasBestScore && bestScore != Integer.MAX_VALUE && bestScore != Integer.MIN_VALUE) {
+			alpha = Math.max(Integer.MIN_VALUE, (long) bestScore - delta);
+			beta = Math.min(Integer.MAX_VALUE, (long) bestScore + delta);
+		}
+		while (true) {
+			int move = searchRoot(depth, (int) alpha, (int) beta);
+			if (timeOver) {
+				return -1;
+			}
+			if (bestScore <= alpha && alpha > Integer.MIN_VALUE) {
+				// Failed low; widen the window below
+				delta *= 4;
+				alpha = Math.max(Integer.MIN_VALUE, (long) bestScore - delta);
+			}
+			else if (bestScore >= beta && beta < Integer.MAX_VALUE) {
+				// Failed high; widen the window above
+				delta *= 4;
+				beta = Math.min(Integer.MAX_VALUE, (long) bestScore + delta);
+			}
+			else {
+				hasBestScore = true;
+				return move;
+			}
+		}
+	}
+
+	/**
+	 * This method searches every move at the root to the specified depth,
+	 * within the given alpha-beta window, and returns the best one for
+	 * the AI. The first move is searched with the full window, and the
+	 * other moves with a null window unless they turn out to be better.
+	 * Once the search finishes, the moves at the root are sorted by their
+	 * values, and the principal variation is saved, so that the search at
+	 * the next depth limit tries the most promising moves first. If time
+	 * runs out, the timeOver flag is set and the result of this search
+	 * should be discarded.
+	 *
+	 * @param depth depth limit of the search
+	 * @param alpha alpha value for the game tree
+	 * @param beta beta value for the game tree
+	 * @return the cell index of the best move, or -1 if time ran out
+	 */
+	public int searchRoot(int depth, int alpha, int beta) {
+		timeOver = false;
+		followPV = true;
+		pvLength[0] = 0;
+		int originalAlpha = alpha;
+		int best = Integer.MIN_VALUE;
+		int bestIndex = 0;
+		count(TeamEurekaStatistics.NODES);
+		count(TeamEurekaStatistics.EXPANDED_NODES);
+		for (int i = 0; i < numRootMoves; i++) {
+			count(TeamEurekaStatistics.MOVES_SEARCHED);
+			evaluator.makeMove(rootMoves[i], (byte) thisPlayerTurn);
+			int score;
+			if (i == 0) {
+				score = alphaBeta(1, depth - 1, alpha, beta, false);
+			}
+			else {
+				score = alphaBeta(1, depth - 1, alpha, alpha + 1, false);
+				if (score > alpha && score < beta && !timeOver) {
+					score = alphaBeta(1, depth - 1, alpha, beta, false);
+				}
+			}
+			evaluator.undoMove();
+			followPV = false;
+			if (timeOver) {
+				return -1;
+			}
+			rootScores[i] = score;
+			if (score > best || i == 0) {
+				best = score;
+				bestIndex = i;
+				updatePV(0, rootMoves[i]);
+			}
+			if (best > alpha) {
+				alpha = best;
+			}
+			if (beta <= alpha) {
+				// Scores of the remaining moves are unknown; keep them below this one
+				for (int j = i + 1; j < numRootMoves; j++) {
+					rootScores[j] = Integer.MIN_VALUE;
+				}
+				break;
+			}
+		}
+		bestScore = best;
+		int bestMove = rootMoves[bestIndex];
+		int bound = TeamEurekaTranspositionTable.EXACT;
+		if (best <= originalAlpha) {
+			bound = TeamEurekaTranspositionTable.UPPER;
+		}
+		else if (best >= beta) {
+			bound = TeamEurekaTranspositionTable.LOWER;
+		}
+		int symmetry = position.getCanonicalSymmetry();
+		table.store(position.getKey(symmetry), depth, bound, best, position.toSymmetry(bestMove, symmetry));
+		System.arraycopy(pv[0], 0, previousPV, 0, pvLength[0]);
+		previousPVLength = pvLength[0];
+		sortRootMoves();
+		return bestMove;
+	}
+
+	/**
+	 * This method performs minimax search with alpha-beta pruning on the
+	 * subtree below the current board state. It works in the same manner
+	 * as the alphaBeta method of TeamEurekaAI, except that children are
+	 * generated one at a time by playing a move on the board state, and
+	 * removed again by taking the move back. If the depth limit is
+	 * reached, the quiescence method evaluates the board state. Before
+	 * searching the children, the transposition table is checked for
+	 * the board state, and afterwards the result is stored in it. After
+	 * the first child, children are searched with a null window, and
+	 * searched again with the full window only if they are better.
+	 *
+	 * @param ply distance from the root
+	 * @param depth depth of the subtree to be searched
+	 * @param alpha alpha value for the game tree
+	 * @param beta beta value for the game tree
+	 * @param maximizingPlayer indicates if the current node is a max node
+	 * @return the utility value of the current board state
+	 */
+	public int alphaBeta(int ply, int depth, int alpha, int beta, boolean maximizingPlayer) {
+		pvLength[ply] = ply;
+		if (depth == 0) {
+			return quiescence(ply, QUIESCENCE_DEPTH, maximizingPlayer);
+		}
+		if (checkTime()) {
+			return 0;
+		}
+		count(TeamEurekaStatistics.NODES);
+		byte winner = position.getWinner();
+		if (winner != 0) {
+			return winner == thisPlayerTurn ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+		}
+		if (!position.hasMovesLeft()) {
+			return evaluator.eval(maximizingPlayer ? opponentTurn : thisPlayerTurn);
+		}
+		if (tablebase != null) {
+			int value = tablebase.probe(position);
+			if (value != TeamEurekaTablebase.UNKNOWN) {
+				return tablebaseScore(value, maximizingPlayer);
+			}
+		}
+		int symmetry = position.getCanonicalSymmetry();
+		long key = position.getKey(symmetry);
+		long entry = table.probe(key);
+		count(TeamEurekaStatistics.TABLE_PROBES);
+		int hashMove = -1;
+		if (entry != 0) {
+			count(TeamEurekaStatistics.TABLE_HITS);
+			hashMove = position.fromSymmetry(TeamEurekaTranspositionTable.getMove(entry), symmetry);
+			if (TeamEurekaTranspositionTable.getDepth(entry) >= depth && !followPV) {
+				int score = TeamEurekaTranspositionTable.getScore(entry);
+				int bound = TeamEurekaTranspositionTable.getBound(entry);
+				if (bound == TeamEurekaTranspositionTable.EXACT) {
+					return score;
+				}
+				if (bound == TeamEurekaTranspositionTable.LOWER && score > alpha) {
+					alpha = score;
+				}
+				if (bound == TeamEurekaTranspositionTable.UPPER && score < beta) {
+					beta = score;
+				}
+				if (beta <= alpha) {
+					return score;
+				}
+			}
+		}
+		int originalAlpha = alpha;
+		int originalBeta = beta;
+		int player = maximizingPlayer ? thisPlayerTurn : opponentTurn;
+		int[] moves = moveLists[ply];
+		int[] scores = moveScores[ply];
+		int n = generateMoves(moves);
+		if (followPV) {
+			followPV = ply < previousPVLength;
+		}
+		ordering.scoreMoves(ply, player, moves, scores, n, followPV ? previousPV[ply] : hashMove);
+		int best = maximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+		int bestMove = -1;
+		count(TeamEurekaStatistics.EXPANDED_NODES);
+		for (int i = 0; i < n; i++) {
+			TeamEurekaMoveOrdering.selectMove(moves, scores, i, n);
+			count(TeamEurekaStatistics.MOVES_SEARCHED);
+			evaluator.makeMove(moves[i], (byte) player);
+			int score;
+			if (i == 0) {
+				score = alphaBeta(ply + 1, depth - 1, alpha, beta, !maximizingPlayer);
+			}
+			else if (maximizingPlayer) {
+				score = alphaBeta(ply + 1, depth - 1, alpha, alpha + 1, false);
+				if (score > alpha && score < beta && !timeOver) {
+					score = alphaBeta(ply + 1, depth - 1, alpha, beta, false);
+				}
+			}
+			else {
+				score = alphaBeta(ply + 1, depth - 1, beta - 1, beta, true);
+				if (score < beta && score > alpha && !timeOver) {
+					score = alphaBeta(ply + 1, depth - 1, alpha, beta, true);
+				}
+			}
+			evaluator.undoMove();
+			followPV = false;
+			if (timeOver) {
+				return 0;
+			}
+			if (maximizingPlayer ? score > best : score < best) {
+				best = score;
+				bestMove = moves[i];
+				updatePV(ply, moves[i]);
+			}
+			if (maximizingPlayer && best > alpha) {
+				alpha = best;
+			}
+			if (!maximizingPlayer && best < beta) {
+				beta = best;
+			}
+			if (beta <= alpha) {
+				ordering.recordCutoff(ply, player, moves[i], depth);
+				count(TeamEurekaStatistics.CUTOFFS);
+				if (i == 0) {
+					count(TeamEurekaStatistics.FIRST_MOVE_CUTOFFS);
+				}
+				break;
+			}
+		}
+		int bound = TeamEurekaTranspositionTable.EXACT;
+		if (best <= originalAlpha) {
+			bound = TeamEurekaTranspositionTable.UPPER;
+		}
+		else if (best >= originalBeta) {
+			bound = TeamEurekaTranspositionTable.LOWER;
+		}
+		table.store(key, depth, bound, best, position.toSymmetry(bestMove, symmetry));
+		return best;
+	}
+
+	/**
+	 * This method evaluates the current board state at the depth limit.
+	 * Only forcing moves are searched: if the player to move can complete
+	 * a row, they win, and if the other player can complete two rows,
+	 * the player to move cannot block both and loses. If the other player
+	 * can complete exactly one row, the player to move must block it, so
+	 * the blocking move is searched. Otherwise, or once the depth cap is
+	 * reached, the heuristic value of the board state is returned as is
+	 * (stand pat), since no move is forced.
+	 *
+	 * @param ply distance from the root
+	 * @param depth most forced moves still to be searched
+	 * @param maximizingPlayer indicates if the current node is a max node
+	 * @return the utility value of the current board state
+	 */
+	public int quiescence(int ply, int depth, boolean maximizingPlayer) {
+		pvLength[ply] = ply;
+		if (checkTime()) {
+			return 0;
+		}
+		count(TeamEurekaStatistics.QUIESCENCE_NODES);
+		byte winner = position.getWinner();
+		if (winner != 0) {
+			return winner == thisPlayerTurn ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+		}
+		if (tablebase != null) {
+			int value = tablebase.probe(position);
+			if (value != TeamEurekaTablebase.UNKNOWN) {
+				return tablebaseScore(value, maximizingPlayer);
+			}
+		}
+		int h = evaluator.eval(maximizingPlayer ? opponentTurn : thisPlayerTurn);
+		if (!position.hasMovesLeft()) {
+			return h;
+		}
+		int player = maximizingPlayer ? thisPlayerTurn : opponentTurn;
+		int[] moves = moveLists[ply];
+		if (evaluator.findThreatCells(player, moves) > 0) {
+			// Player to move completes a row
+			return maximizingPlayer ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+		}
+		int n = evaluator.findThreatCells(player == thisPlayerTurn ? opponentTurn : thisPlayerTurn, moves);
+		if (n == 0 || depth == 0) {
+			return h;
+		}
+		if (n > 1) {
+			// Two rows cannot both be blocked
+			return maximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+		}
+		evaluator.makeMove(moves[0], (byte) player);
+		int score = quiescence(ply + 1, depth - 1, !maximizingPlayer);
+		evaluator.undoMove();
+		if (timeOver) {
+			return 0;
+		}
+		return score;
+	}
+
+	/**
+	 * This method converts a value from the tablebase, which is for the
+	 * player to move, into a utility value for the AI.
+	 *
+	 * @param value TeamEurekaTablebase.WIN, DRAW or LOSS
+	 * @param maximizingPlayer indicates if the current node is a max node
+	 * @return the utility value of the board state
+	 */
+	private int tablebaseScore(int value, boolean maximizingPlayer) {
+		if (value == TeamEurekaTablebase.DRAW) {
+			return 0;
+		}
+		return (value == TeamEurekaTablebase.WIN) == maximizingPlayer ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+	}
+
+	/**
+	 * This method is called once at every node. It counts the node, reads
+	 * the clock once every CHECK_INTERVAL nodes, and sets the timeOver
+	 * flag if the timer has stopped, whether because the deadline passed
+	 * or because another thread stopped it. Once the flag is set, every
+	 * method returns immediately on its way back to the root.
+	 *
+	 * @return true if the search must stop
+	 */
+	private boolean checkTime() {
+		if ((++nodes & (TeamEurekaTimer.CHECK_INTERVAL - 1)) == 0) {
+			timer.poll();
+		}
+		if (timer.isStopped()) {
+			timeOver = true;
+		}
+		return timeOver;
+	}
+
+	/**
+	 * This method adds one to the given statistics counter. If statistics
+	 * are disabled, the JIT compiler removes the call altogether.
+	 *
+	 * @param counter index of the counter in TeamEurekaStatistics
+	 */
+	private void count(int counter) {
+		if (TeamEurekaStatistics.ENABLED) {
+			counters[counter]++;
+		}
+	}
+
+	/**
+	 * This method records the given move as the best move at the given
+	 * ply, followed by the principal variation found below it.
+	 *
+	 * @param ply distance from the root
+	 * @param move best move at the ply
+	 */
+	private void updatePV(int ply, int move) {
+		pv[ply][ply] = move;
+		int end = ply + 1 < pvLength.length ? Math.max(pvLength[ply + 1], ply + 1) : ply + 1;
+		for (int i = ply + 1; i < end; i++) {
+			pv[ply][i] = pv[ply + 1][i];
+		}
+		pvLength[ply] = end;
+	}
+
+	/**
+	 * This method sorts the moves at the root in order of decreasing
+	 * value from the last depth limit. Insertion sort is used, since
+	 * it is stable and the moves are already nearly sorted after the
+	 * first depth limit.
+	 */
+	private void sortRootMoves() {
+		for (int i = 1; i < numRootMoves; i++) {
+			int move = rootMoves[i];
+			int score = rootScores[i];
+			int j = i - 1;
+			while (j >= 0 && rootScores[j] < score) {
+				rootMoves[j + 1] = rootMoves[j];
+				rootScores[j + 1] = rootScores[j];
+				j--;
+			}
+			rootMoves[j + 1] = move;
+			rootScores[j + 1] = score;
+		}
+	}
+}
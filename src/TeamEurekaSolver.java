@@ -0,0 +1,210 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaSolver class works out the exact value of a board state,
+ * win, draw or loss, by searching to the end of the game. It is used in
+ * place of the heuristic search once few enough empty cells are left,
+ * since there is then no need to guess the value of a board state.
+ *
+ * The search is a negamax alpha-beta search with only three values, so
+ * most of the tree is cut off as soon as a win is found. If the player
+ * to move can complete a row, the board state is a win, and if the other
+ * player can complete a row, the only move searched is the one that
+ * blocks it. Results are stored in a TeamEurekaTranspositionTable under
+ * the canonical keys of the board states, and board states in the
+ * tablebase, if there is one, are not searched at all.
+ *
+ * Every empty cell is searched, not only the cells near the pieces, so
+ * that the value is exact. The search stops when its timer runs out, in
+ * which case its result must be discarded.
+ */
+public class TeamEurekaSolver {
+	public static final double TIME_SHARE = 0.5; // Share of the time for a move given to the solver
+	private TeamEurekaBitboard position; // Board state that moves are played on
+	private TeamEurekaTranspositionTable table; // Results of previously solved board states
+	private TeamEurekaTablebase tablebase; // Values of small board states, or null
+	private TeamEurekaTimer timer; // Time control for the solver
+	private int[][] moveLists; // List of moves for each ply of the current path
+	private int bestMove; // Best move found at the root
+	private int nodes; // Number of nodes visited, for deciding when to read the clock
+	private boolean timeOver; // Indicates if time ran out
+
+	public TeamEurekaSolver(TeamEurekaBitboard position, TeamEurekaTranspositionTable table, TeamEurekaTablebase tablebase,
+			TeamEurekaTimer timer) {
+		this.position = new TeamEurekaBitboard(position);
+		this.position.setRadius(0);
+		this.table = table;
+		this.tablebase = tablebase;
+		this.timer = timer;
+		moveLists = new int[position.getSpacesLeft() + 1][position.getSpacesLeft()];
+		bestMove = -1;
+		timeOver = false;
+	}
+
+	public int getBestMove() {
+		return bestMove;
+	}
+
+	public boolean isTimeOver() {
+		return timeOver;
+	}
+
+	/**
+	 * This method solves the board state for the given player to move,
+	 * and records the best move.
+	 *
+	 * @param player player to move (1 or 2)
+	 * @return TeamEurekaTablebase.WIN, DRAW or LOSS for the player to move,
+	 * or any of them if time ran out
+	 */
+	public int solve(int player) {
+		return negamax(0, player, TeamEurekaTablebase.LOSS, TeamEurekaTablebase.WIN);
+	}
+
+	/**
+	 * This method performs negamax search with alpha-beta pruning to the
+	 * end of the game, on values that are always for the player to move.
+	 *
+	 * @param ply distance from the root
+	 * @param player player to move (1 or 2)
+	 * @param alpha lowest value still of interest
+	 * @param beta highest value still of interest
+	 * @return the value of the board state for the player to move
+	 */
+	private int negamax(int ply, int player, int alpha, int beta) {
+		if ((++nodes & (TeamEurekaTimer.CHECK_INTERVAL - 1)) == 0) {
+			timer.poll();
+		}
+		if (timer.isStopped()) {
+			timeOver = true;
+			return TeamEurekaTablebase.DRAW;
+		}
+		if (position.getWinner() != 0) {
+			return TeamEurekaTablebase.LOSS;
+		}
+		if (!position.hasMovesLeft()) {
+			return TeamEurekaTablebase.DRAW;
+		}
+		if (tablebase != null && ply > 0) {
+			int value = tablebase.probe(position);
+			if (value != TeamEurekaTablebase.UNKNOWN) {
+				return value;
+			}
+		}
+		int opponent = player == 1 ? 2 : 1;
+		int[] moves = moveLists[ply];
+		int n = position.generateMoves(moves);
+		int threat = -1;
+		for (int i = 0; i < n; i++) {
+			if (completesRow(moves[i], player)) {
+				if (ply == 0) {
+					bestMove = moves[i];
+				}
+				return TeamEurekaTablebase.WIN;
+			}
+			if (threat == -1 && completesRow(moves[i], opponent)) {
+				threat = moves[i];
+			}
+		}
+		if (threat != -1) {
+			// Every other move loses at once
+			moves[0] = threat;
+			n = 1;
+		}
+		int symmetry = position.getCanonicalSymmetry();
+		long key = position.getKey(symmetry);
+		long entry = ply > 0 ? table.probe(key) : 0;
+		if (entry != 0) {
+			int score = TeamEurekaTranspositionTable.getScore(entry);
+			int bound = TeamEurekaTranspositionTable.getBound(entry);
+			if (bound == TeamEurekaTranspositionTable.EXACT) {
+				return score;
+			}
+			if (bound == TeamEurekaTranspositionTable.LOWER && score > alpha) {
+				alpha = score;
+			}
+			if (bound == TeamEurekaTranspositionTable.UPPER && score < beta) {
+				beta = score;
+			}
+			if (beta <= alpha) {
+				return score;
+			}
+			int hashMove = position.fromSymmetry(TeamEurekaTranspositionTable.getMove(entry), symmetry);
+			for (int i = 1; i < n; i++) {
+				if (moves[i] == hashMove) {
+					moves[i] = moves[0];
+					moves[0] = hashMove;
+					break;
+				}
+			}
+		}
+		int originalAlpha = alpha;
+		int best = TeamEurekaTablebase.LOSS - 1;
+		int bestCell = -1;
+		for (int i = 0; i < n; i++) {
+			position.makeMove(moves[i], (byte) player);
+			int value = TeamEurekaTablebase.WIN - negamax(ply + 1, opponent, TeamEurekaTablebase.WIN - beta, TeamEurekaTablebase.WIN - alpha);
+			position.undoMove();
+			if (timeOver) {
+				return TeamEurekaTablebase.DRAW;
+			}
+			if (value > best) {
+				best = value;
+				bestCell = moves[i];
+				if (ply == 0) {
+					bestMove = bestCell;
+				}
+			}
+			if (best > alpha) {
+				alpha = best;
+			}
+			if (alpha >= beta) {
+				break;
+			}
+		}
+		int bound = TeamEurekaTranspositionTable.EXACT;
+		if (best <= originalAlpha) {
+			bound = TeamEurekaTranspositionTable.UPPER;
+		}
+		else if (best >= beta) {
+			bound = TeamEurekaTranspositionTable.LOWER;
+		}
+		table.store(key, position.getSpacesLeft(), bound, best, position.toSymmetry(bestCell, symmetry));
+		return best;
+	}
+
+	/**
+	 * This method checks if a piece of the given player at the specified
+	 * cell would complete a row.
+	 *
+	 * @param cell cell index of the piece
+	 * @param player player the piece belongs to (1 or 2)
+	 * @return the truth value of whether the piece completes a row
+	 */
+	private boolean completesRow(int cell, int player) {
+		position.makeMove(cell, (byte) player);
+		boolean won = position.getWinner() == player;
+		position.undoMove();
+		return won;
+	}
+}
@@ -21,7 +21,7 @@
  * 	Arash Nabili
  * CS 171 Winter 2015
  * 
- * The TeamEurekaStateNode class is a wrapper class for BoardModel objects.
+ * The TeamEurekaStateNode class is a wrapper class for TeamEurekaBitboard objects.
  * It is used for storing a board state, along with its utility value
  * and the player that made the last move on the current board state.
  * It also provides a tree data structure for referencing a node's
@@ -29,17 +29,16 @@
  * Additionally, each node stores a reference to the child node with
  * the highest or lowest utility value, for use with minimax.
  * 
- * There is a method for adding child nodes to the current node.
+ * There are methods for making room for child nodes and adding
+ * them to the current node.
  * There are also accessors for getting the current node's board
  * state, the list of child nodes, the parent node, the current
  * board state's utility value, the player that made the last move,
  * and the child node with the best move. Additionally, there are
  * mutators for setting the utility value and the best child.
  */
-import connectK.BoardModel;
-
 public class TeamEurekaStateNode {
-	private BoardModel state; // Board state enclosed by the node
+	private TeamEurekaBitboard state; // Board state enclosed by the node
 	private TeamEurekaStateNode[] children; // Array of child nodes
 	private int h; // Board state's utility value
 	private int bestChild; // Index of child node with best heuristic value 
@@ -47,7 +46,7 @@ public class TeamEurekaStateNode {
 	private boolean timeOver; // Indicates if time has run out while at this node
 	private boolean quiet; // Indicates if this node is quiescent
 	
-	public TeamEurekaStateNode(BoardModel s, int b, int last) {
+	public TeamEurekaStateNode(TeamEurekaBitboard s, int b, int last) {
 		state = s;
 		h = 0;
 		children = new TeamEurekaStateNode[b];
@@ -57,7 +56,7 @@ public class TeamEurekaStateNode {
 		lastMove = last;
 	}
 	
-	public BoardModel getState() {
+	public TeamEurekaBitboard getState() {
 		return state;
 	}
 	
@@ -101,6 +100,15 @@ public class TeamEurekaStateNode {
 		quiet = quiescence;
 	}
 	
+	/**
+	 * This function makes room for the given number of child nodes,
+	 * replacing any child nodes the current node already has.
+	 * @param b number of child nodes
+	 */
+	public void setNumChildren(int b) {
+		children = new TeamEurekaStateNode[b];
+	}
+	
 	/**
 	 * This function adds a TeamEurekaStateNode object as a child
 	 * of the current TeamEurekaStateNode object.
@@ -0,0 +1,340 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaStatistics class collects statistics about the depth-first
+ * search: nodes searched per second, the average number of moves searched
+ * at each node (branching factor), how often a cutoff is caused by the
+ * first move searched, how often the transposition table has an entry for
+ * a board state, the number of quiescence nodes, and the depth limit
+ * during which time ran out. They are recorded for every depth limit of
+ * the main search and for every move, and can be read through JMX as a
+ * TeamEurekaStatisticsMBean, or written to a log file with one JSON
+ * object per move, named by the teameureka.statslog system property.
+ *
+ * Statistics are only collected if the teameureka.stats system property
+ * is set to true. The ENABLED flag is a static final field, which the JIT
+ * compiler treats as a constant, so when it is false every statement
+ * guarded by it is removed from the compiled code, and the search runs
+ * as if there were no statistics at all.
+ *
+ * To keep the overhead low while statistics are enabled, each
+ * TeamEurekaSearch counts into its own array of counters, which is only
+ * ever written by the thread running that search, so counting a node is
+ * a plain increment. The counters are read by the main thread at the end
+ * of each depth limit, and those of helper searches once their threads
+ * have finished. Only then are they added here, in synchronized methods,
+ * which makes them safe to read from JMX threads.
+ */
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class TeamEurekaStatistics implements TeamEurekaStatisticsMBean {
+	public static final boolean ENABLED = Boolean.getBoolean("teameureka.stats"); // Indicates if statistics are collected
+	public static final int NODES = 0; // Counter of nodes searched by alpha-beta search
+	public static final int QUIESCENCE_NODES = 1; // Counter of nodes searched by quiescence search
+	public static final int TABLE_PROBES = 2; // Counter of transposition table lookups
+	public static final int TABLE_HITS = 3; // Counter of transposition table lookups that found an entry
+	public static final int EXPANDED_NODES = 4; // Counter of nodes whose moves were searched
+	public static final int MOVES_SEARCHED = 5; // Counter of moves searched at expanded nodes
+	public static final int CUTOFFS = 6; // Counter of nodes where the remaining moves were cut off
+	public static final int FIRST_MOVE_CUTOFFS = 7; // Counter of cutoffs caused by the first move searched
+	public static final int NUM_COUNTERS = 8; // Number of counters
+	private long[] totals; // Counters summed over every move
+	private long totalTime; // Time spent on every move, in milliseconds
+	private long movesSearched; // Number of moves searched
+	private long[] lastMove; // Counters for the last move, from every thread
+	private long lastMoveTime; // Time spent on the last move, in milliseconds
+	private int lastMoveDepth; // Deepest depth limit completed for the last move
+	private int lastMoveTimeoutDepth; // Depth limit during which time ran out on the last move, or 0
+	private ArrayList<String> iterations; // Statistics of each depth limit of the current move, as JSON objects
+	private long[] previousCounters; // Counters of the main search at the end of the previous depth limit
+	private long previousTime; // Time at the end of the previous depth limit, in milliseconds
+	private long previousNodes; // Nodes searched during the previous depth limit
+	private int player; // Player number of the AI (1 or 2)
+	private PrintWriter log; // Log file of the statistics of each move, or null
+
+	public TeamEurekaStatistics(int player, PrintWriter log) {
+		this.player = player;
+		this.log = log;
+		totals = new long[NUM_COUNTERS];
+		lastMove = new long[NUM_COUNTERS];
+		previousCounters = new long[NUM_COUNTERS];
+		iterations = new ArrayList<String>();
+	}
+
+	/**
+	 * This method creates the statistics for an AI, opens the log file
+	 * if the teameureka.statslog system property is set, and registers
+	 * the statistics with the platform MBean server, under the name
+	 * teameureka:type=Statistics,player=N. If an earlier AI for the same
+	 * player is still registered, it is replaced. Failing to open the log
+	 * or to register does not stop the AI; statistics are then simply
+	 * not logged or not available through JMX.
+	 *
+	 * @param player player number of the AI (1 or 2)
+	 * @return the statistics
+	 */
+	public static TeamEurekaStatistics create(int player) {
+		PrintWriter log = null;
+		String fileName = System.getProperty("teameureka.statslog");
+		if (fileName != null) {
+			try {
+				log = new PrintWriter(new FileWriter(fileName, true), true);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		TeamEurekaStatistics statistics = new TeamEurekaStatistics(player, log);
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName("teameureka:type=Statistics,player=" + player);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(statistics, name);
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+		return statistics;
+	}
+
+	/**
+	 * This method starts collecting statistics for a new move, and must be
+	 * called before the main search starts. The counters of a new
+	 * TeamEurekaSearch start at zero, so the statistics of each depth limit
+	 * are measured from zero as well.
+	 */
+	public synchronized void startMove() {
+		iterations.clear();
+		Arrays.fill(previousCounters, 0);
+		previousTime = 0;
+		previousNodes = 0;
+	}
+
+	/**
+	 * This method records the statistics of a depth limit completed by the
+	 * main search: the difference between its counters now and at the end
+	 * of the previous depth limit. The effective branching factor is the
+	 * ratio of the nodes searched to those of the previous depth limit.
+	 *
+	 * @param depth depth limit completed
+	 * @param time time elapsed since the start of the move, in milliseconds
+	 * @param counters counters of the main search
+	 */
+	public synchronized void recordDepth(int depth, long time, long[] counters) {
+		long[] delta = new long[NUM_COUNTERS];
+		for (int i = 0; i < NUM_COUNTERS; i++) {
+			delta[i] = counters[i] - previousCounters[i];
+		}
+		System.arraycopy(counters, 0, previousCounters, 0, NUM_COUNTERS);
+		long nodes = delta[NODES] + delta[QUIESCENCE_NODES];
+		StringBuilder json = new StringBuilder();
+		json.append("{\"depth\":").append(depth);
+		json.append(",\"time\":").append(time - previousTime);
+		appendCounters(json, delta, time - previousTime);
+		json.append(",\"effectiveBranchingFactor\":").append(format(ratio(nodes, previousNodes)));
+		json.append('}');
+		iterations.add(json.toString());
+		previousTime = time;
+		previousNodes = nodes;
+	}
+
+	/**
+	 * This method records the statistics of a move, adding up the counters
+	 * of the main search and every helper search. The helper searches must
+	 * have finished. If a log file is open, the statistics are written to
+	 * it as one line, along with those of each depth limit.
+	 *
+	 * @param time time spent on the move, in milliseconds
+	 * @param depth deepest depth limit completed by any search
+	 * @param timeoutDepth depth limit during which time ran out, or 0
+	 * @param spacesLeft number of empty cells on the board state searched
+	 * @param search main search
+	 * @param helpers helper searches
+	 */
+	public synchronized void endMove(long time, int depth, int timeoutDepth, int spacesLeft, TeamEurekaSearch search,
+			TeamEurekaSearch[] helpers) {
+		System.arraycopy(search.getCounters(), 0, lastMove, 0, NUM_COUNTERS);
+		for (int i = 0; i < helpers.length; i++) {
+			long[] counters = helpers[i].getCounters();
+			for (int j = 0; j < NUM_COUNTERS; j++) {
+				lastMove[j] += counters[j];
+			}
+		}
+		for (int i = 0; i < NUM_COUNTERS; i++) {
+			totals[i] += lastMove[i];
+		}
+		lastMoveTime = time;
+		lastMoveDepth = depth;
+		lastMoveTimeoutDepth = timeoutDepth;
+		totalTime += time;
+		movesSearched++;
+		if (log != null) {
+			StringBuilder json = new StringBuilder();
+			json.append("{\"player\":").append(player);
+			json.append(",\"move\":").append(movesSearched);
+			json.append(",\"spacesLeft\":").append(spacesLeft);
+			json.append(",\"threads\":").append(helpers.length + 1);
+			json.append(",\"time\":").append(time);
+			json.append(",\"depth\":").append(depth);
+			json.append(",\"timeoutDepth\":").append(timeoutDepth);
+			appendCounters(json, lastMove, time);
+			json.append(",\"iterations\":[").append(String.join(",", iterations)).append("]}");
+			log.println(json);
+		}
+	}
+
+	/**
+	 * This method appends the statistics derived from the given counters
+	 * to a JSON object.
+	 *
+	 * @param json JSON object being built
+	 * @param counters counters to be appended
+	 * @param time time taken to count them, in milliseconds
+	 */
+	private static void appendCounters(StringBuilder json, long[] counters, long time) {
+		json.append(",\"nodes\":").append(counters[NODES] + counters[QUIESCENCE_NODES]);
+		json.append(",\"quiescenceNodes\":").append(counters[QUIESCENCE_NODES]);
+		json.append(",\"nodesPerSecond\":").append(nodesPerSecond(counters, time));
+		json.append(",\"branchingFactor\":").append(format(ratio(counters[MOVES_SEARCHED], counters[EXPANDED_NODES])));
+		json.append(",\"firstMoveCutoffRate\":").append(format(ratio(counters[FIRST_MOVE_CUTOFFS], counters[CUTOFFS])));
+		json.append(",\"tableHitRate\":").append(format(ratio(counters[TABLE_HITS], counters[TABLE_PROBES])));
+	}
+
+	private static long nodesPerSecond(long[] counters, long time) {
+		return (counters[NODES] + counters[QUIESCENCE_NODES]) * 1000 / Math.max(1, time);
+	}
+
+	private static double ratio(long numerator, long denominator) {
+		return denominator == 0 ? 0 : (double) numerator / denominator;
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	@Override
+	public synchronized long getMovesSearched() {
+		return movesSearched;
+	}
+
+	@Override
+	public synchronized long getNodes() {
+		return totals[NODES] + totals[QUIESCENCE_NODES];
+	}
+
+	@Override
+	public synchronized long getQuiescenceNodes() {
+		return totals[QUIESCENCE_NODES];
+	}
+
+	@Override
+	public synchronized long getNodesPerSecond() {
+		return nodesPerSecond(totals, totalTime);
+	}
+
+	@Override
+	public synchronized double getBranchingFactor() {
+		return ratio(totals[MOVES_SEARCHED], totals[EXPANDED_NODES]);
+	}
+
+	@Override
+	public synchronized double getFirstMoveCutoffRate() {
+		return ratio(totals[FIRST_MOVE_CUTOFFS], totals[CUTOFFS]);
+	}
+
+	@Override
+	public synchronized double getTableHitRate() {
+		return ratio(totals[TABLE_HITS], totals[TABLE_PROBES]);
+	}
+
+	@Override
+	public synchronized long getLastMoveTime() {
+		return lastMoveTime;
+	}
+
+	@Override
+	public synchronized long getLastMoveNodes() {
+		return lastMove[NODES] + lastMove[QUIESCENCE_NODES];
+	}
+
+	@Override
+	public synchronized long getLastMoveQuiescenceNodes() {
+		return lastMove[QUIESCENCE_NODES];
+	}
+
+	@Override
+	public synchronized long getLastMoveNodesPerSecond() {
+		return nodesPerSecond(lastMove, lastMoveTime);
+	}
+
+	@Override
+	public synchronized int getLastMoveDepth() {
+		return lastMoveDepth;
+	}
+
+	@Override
+	public synchronized int getLastMoveTimeoutDepth() {
+		return lastMoveTimeoutDepth;
+	}
+
+	@Override
+	public synchronized double getLastMoveBranchingFactor() {
+		return ratio(lastMove[MOVES_SEARCHED], lastMove[EXPANDED_NODES]);
+	}
+
+	@Override
+	public synchronized double getLastMoveFirstMoveCutoffRate() {
+		return ratio(lastMove[FIRST_MOVE_CUTOFFS], lastMove[CUTOFFS]);
+	}
+
+	@Override
+	public synchronized double getLastMoveTableHitRate() {
+		return ratio(lastMove[TABLE_HITS], lastMove[TABLE_PROBES]);
+	}
+
+	@Override
+	public synchronized String[] getLastMoveIterations() {
+		return iterations.toArray(new String[iterations.size()]);
+	}
+
+	@Override
+	public synchronized void reset() {
+		Arrays.fill(totals, 0);
+		Arrays.fill(lastMove, 0);
+		totalTime = 0;
+		movesSearched = 0;
+		lastMoveTime = 0;
+		lastMoveDepth = 0;
+		lastMoveTimeoutDepth = 0;
+		iterations.clear();
+	}
+}
@@ -0,0 +1,51 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaStatisticsMBean interface is the management interface of
+ * TeamEurekaStatistics, through which JMX clients such as jconsole read
+ * the search statistics of a running AI. Attributes starting with
+ * LastMove are for the last move searched, and the others are totals
+ * over every move searched since the AI was created or last reset.
+ * LastMoveIterations holds one JSON object for each depth limit of the
+ * move being searched, or of the last move if none is being searched.
+ */
+public interface TeamEurekaStatisticsMBean {
+	public long getMovesSearched();
+	public long getNodes();
+	public long getQuiescenceNodes();
+	public long getNodesPerSecond();
+	public double getBranchingFactor();
+	public double getFirstMoveCutoffRate();
+	public double getTableHitRate();
+	public long getLastMoveTime();
+	public long getLastMoveNodes();
+	public long getLastMoveQuiescenceNodes();
+	public long getLastMoveNodesPerSecond();
+	public int getLastMoveDepth();
+	public int getLastMoveTimeoutDepth();
+	public double getLastMoveBranchingFactor();
+	public double getLastMoveFirstMoveCutoffRate();
+	public double getLastMoveTableHitRate();
+	public String[] getLastMoveIterations();
+	public void reset();
+}
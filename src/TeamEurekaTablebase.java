@@ -0,0 +1,416 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaTablebase class holds the exact value, win, draw or
+ * loss, of every board state of a small board with at most a given
+ * number of empty cells, so that the search can stop at those board
+ * states instead of evaluating them. There is one tablebase file for
+ * each board geometry, named in the same manner as the opening book
+ * files, such as 5x4k4.tb, in the same directory.
+ *
+ * A board state is encoded in a single long, with the bits of player
+ * 1's pieces followed by the bits of player 2's pieces, so only boards
+ * with up to MAX_CELLS cells can have a tablebase. The code is taken
+ * under every symmetry of the board and the smallest is kept, so a
+ * board state and its mirror images and rotations share one record.
+ * Each record is the code shifted left by two bits, with the value for
+ * the player to move in the low two bits, and the records are sorted,
+ * so the file is mapped into memory and searched in place, in the same
+ * manner as TeamEurekaOpeningBook.
+ *
+ * The tablebase is generated offline by retrograde analysis in the main
+ * method. Every board state that can be reached from the empty board is
+ * enumerated, one layer for each number of pieces, keeping each layer
+ * as a sorted array of codes. The values are then worked out backwards,
+ * from the full board to the layers being stored: a board state where
+ * the last move won is a loss for the player to move, a full board is
+ * a draw, and any other board state is worth the best of its children.
+ * Layers with more empty cells than the limit are not kept, but they
+ * still have to be enumerated on the way, so the time and memory needed
+ * grow with the number of board states in the largest layer. This is
+ * only practical for boards of up to about twenty cells, or for larger
+ * boards with gravity.
+ */
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class TeamEurekaTablebase {
+	public static final int MAGIC = 0x434B5442; // First four bytes of a tablebase file
+	public static final int HEADER_SIZE = 16; // Bytes before the first record
+	public static final int MAX_CELLS = 30; // Most cells a board can have, so that a record fits in a long
+	public static final int LOSS = 0; // Value of a board state lost by the player to move
+	public static final int DRAW = 1; // Value of a drawn board state
+	public static final int WIN = 2; // Value of a board state won by the player to move
+	public static final int UNKNOWN = -1; // Returned for board states not in the tablebase
+	private TeamEurekaGeometry geometry; // Tables for the geometry of the board
+	private MappedByteBuffer buffer; // Contents of the tablebase file
+	private int maxEmpty; // Most empty cells of a board state in the tablebase
+	private int numRecords; // Number of records in the tablebase
+
+	private TeamEurekaTablebase(TeamEurekaGeometry geometry, MappedByteBuffer buffer) {
+		this.geometry = geometry;
+		this.buffer = buffer;
+		maxEmpty = buffer.getShort(10) >>> 1;
+		numRecords = buffer.getInt(12);
+	}
+
+	/**
+	 * This method returns the name of the tablebase file for the given
+	 * board geometry.
+	 *
+	 * @param geometry tables for the geometry of the board
+	 * @return the name of the tablebase file
+	 */
+	public static String getFileName(TeamEurekaGeometry geometry) {
+		return geometry.getWidth() + "x" + geometry.getHeight() + "k" + geometry.getkLength() + (geometry.gravityEnabled() ? "g" : "") + ".tb";
+	}
+
+	/**
+	 * This method opens the tablebase file for the given board geometry
+	 * in the given directory, by mapping it into memory. A missing file is
+	 * not an error, since most board geometries are too large to have a
+	 * tablebase.
+	 *
+	 * @param directory directory holding the tablebase files
+	 * @param geometry tables for the geometry of the board
+	 * @return the tablebase, or null if there is no valid tablebase file
+	 */
+	public static TeamEurekaTablebase open(String directory, TeamEurekaGeometry geometry) {
+		if (geometry.getNumCells() > MAX_CELLS) {
+			return null;
+		}
+		Path path = Paths.get(directory, getFileName(geometry));
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE) {
+				return null;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != geometry.getWidth() || buffer.getShort(6) != geometry.getHeight()
+					|| buffer.getShort(8) != geometry.getkLength() || (buffer.getShort(10) & 1) != (geometry.gravityEnabled() ? 1 : 0)
+					|| channel.size() != HEADER_SIZE + 8L * buffer.getInt(12)) {
+				return null;
+			}
+			return new TeamEurekaTablebase(geometry, buffer);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	public int getMaxEmpty() {
+		return maxEmpty;
+	}
+
+	public int getNumRecords() {
+		return numRecords;
+	}
+
+	/**
+	 * This method looks up the value of the given board state for the
+	 * player to move.
+	 *
+	 * @param position current board state
+	 * @return WIN, DRAW or LOSS, or UNKNOWN if the board state has too
+	 * many empty cells or is not in the tablebase
+	 */
+	public int probe(TeamEurekaBitboard position) {
+		if (position.getSpacesLeft() > maxEmpty) {
+			return UNKNOWN;
+		}
+		long code = canonicalCode(geometry, position.getPieces(1), position.getPieces(2));
+		int low = 0;
+		int high = numRecords - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long record = buffer.getLong(HEADER_SIZE + 8 * mid);
+			long midCode = record >>> 2;
+			if (midCode < code) {
+				low = mid + 1;
+			}
+			else if (midCode > code) {
+				high = mid - 1;
+			}
+			else {
+				return (int) (record & 3);
+			}
+		}
+		return UNKNOWN;
+	}
+
+	/**
+	 * This method encodes a board state under every symmetry of the board,
+	 * and returns the smallest code.
+	 *
+	 * @param geometry tables for the geometry of the board
+	 * @param pieces1 bit set of player 1's pieces
+	 * @param pieces2 bit set of player 2's pieces
+	 * @return the canonical code of the board state
+	 */
+	public static long canonicalCode(TeamEurekaGeometry geometry, long pieces1, long pieces2) {
+		int numCells = geometry.getNumCells();
+		long best = pieces1 | (pieces2 << numCells);
+		int[][] symmetries = geometry.getSymmetries();
+		for (int s = 1; s < symmetries.length; s++) {
+			long code = 0;
+			for (long word = pieces1; word != 0; word &= word - 1) {
+				code |= 1L << symmetries[s][Long.numberOfTrailingZeros(word)];
+			}
+			for (long word = pieces2; word != 0; word &= word - 1) {
+				code |= 1L << (numCells + symmetries[s][Long.numberOfTrailingZeros(word)]);
+			}
+			if (code < best) {
+				best = code;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * This method generates a tablebase file by retrograde analysis. The
+	 * arguments are the width, height, value of K, whether gravity is
+	 * enabled (true or false), the most empty cells of a board state to
+	 * be stored, and optionally the directory to write the tablebase to.
+	 *
+	 * @param args command line arguments
+	 * @throws IOException if the tablebase file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 5) {
+			System.err.println("Usage: java TeamEurekaTablebase width height k gravity maxEmpty [directory]");
+			System.exit(1);
+		}
+		int width = Integer.parseInt(args[0]);
+		int height = Integer.parseInt(args[1]);
+		int kLength = Integer.parseInt(args[2]);
+		boolean gravity = Boolean.parseBoolean(args[3]);
+		String directory = args.length > 5 ? args[5] : System.getProperty("teameureka.book", "book");
+		TeamEurekaGeometry geometry = TeamEurekaGeometry.get(width, height, kLength, gravity);
+		int numCells = geometry.getNumCells();
+		if (numCells > MAX_CELLS) {
+			System.err.println("Boards with more than " + MAX_CELLS + " cells cannot have a tablebase");
+			System.exit(1);
+		}
+		int maxEmpty = Math.min(Integer.parseInt(args[4]), numCells);
+		int firstStored = numCells - maxEmpty; // Number of pieces in the first layer stored
+		long[] windowMasks = getWindowMasks(geometry);
+		// Enumerate the board states reachable from the empty board, one layer at a time
+		long[][] layers = new long[numCells + 1][];
+		long[] layer = new long[] { 0 };
+		for (int pieces = 0; pieces <= numCells; pieces++) {
+			if (pieces >= firstStored) {
+				layers[pieces] = layer;
+			}
+			System.out.println("Layer " + pieces + ": " + layer.length + " board states");
+			if (pieces < numCells) {
+				layer = nextLayer(geometry, windowMasks, layer, pieces);
+			}
+		}
+		// Work out the values backwards from the full board
+		byte[][] values = new byte[numCells + 1][];
+		for (int pieces = numCells; pieces >= firstStored; pieces--) {
+			values[pieces] = new byte[layers[pieces].length];
+			for (int i = 0; i < layers[pieces].length; i++) {
+				values[pieces][i] = (byte) solve(geometry, windowMasks, layers[pieces][i], pieces,
+						pieces < numCells ? layers[pieces + 1] : null, pieces < numCells ? values[pieces + 1] : null);
+			}
+		}
+		int count = 0;
+		for (int pieces = firstStored; pieces <= numCells; pieces++) {
+			count += layers[pieces].length;
+		}
+		long[] records = new long[count];
+		int n = 0;
+		for (int pieces = firstStored; pieces <= numCells; pieces++) {
+			for (int i = 0; i < layers[pieces].length; i++) {
+				records[n++] = (layers[pieces][i] << 2) | values[pieces][i];
+			}
+		}
+		Arrays.sort(records);
+		Path path = Paths.get(directory, getFileName(geometry));
+		Files.createDirectories(path.getParent());
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile())))) {
+			out.writeInt(MAGIC);
+			out.writeShort(width);
+			out.writeShort(height);
+			out.writeShort(kLength);
+			out.writeShort((maxEmpty << 1) | (gravity ? 1 : 0));
+			out.writeInt(count);
+			for (int i = 0; i < count; i++) {
+				out.writeLong(records[i]);
+			}
+		}
+		System.out.println("Wrote " + count + " board states to " + path);
+	}
+
+	/**
+	 * This method returns, for each window of the board, a bit set of
+	 * its cells.
+	 *
+	 * @param geometry tables for the geometry of the board
+	 * @return the bit sets of the windows
+	 */
+	private static long[] getWindowMasks(TeamEurekaGeometry geometry) {
+		int kLength = geometry.getkLength();
+		int[] windowCells = geometry.getWindowCells();
+		long[] masks = new long[geometry.getNumWindows()];
+		for (int w = 0; w < masks.length; w++) {
+			for (int m = 0; m < kLength; m++) {
+				masks[w] |= 1L << windowCells[w * kLength + m];
+			}
+		}
+		return masks;
+	}
+
+	/**
+	 * This method checks if the given pieces fill any window of the board.
+	 *
+	 * @param windowMasks bit sets of the windows
+	 * @param pieces bit set of one player's pieces
+	 * @return the truth value of whether the player has K in a row
+	 */
+	private static boolean hasRow(long[] windowMasks, long pieces) {
+		for (int w = 0; w < windowMasks.length; w++) {
+			if ((pieces & windowMasks[w]) == windowMasks[w]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * This method returns the bit set of the cells a piece can be placed
+	 * in: every empty cell, or with gravity, the lowest empty cell of
+	 * each column.
+	 *
+	 * @param geometry tables for the geometry of the board
+	 * @param occupied bit set of the cells holding a piece
+	 * @return the bit set of the playable cells
+	 */
+	private static long playableCells(TeamEurekaGeometry geometry, long occupied) {
+		int numCells = geometry.getNumCells();
+		long empty = ~occupied & ((1L << numCells) - 1);
+		if (!geometry.gravityEnabled()) {
+			return empty;
+		}
+		int height = geometry.getHeight();
+		long playable = 0;
+		for (int x = 0; x < geometry.getWidth(); x++) {
+			for (int y = 0; y < height; y++) {
+				int cell = x * height + y;
+				if ((empty & (1L << cell)) != 0) {
+					playable |= 1L << cell;
+					break;
+				}
+			}
+		}
+		return playable;
+	}
+
+	/**
+	 * This method enumerates the board states one move after the board
+	 * states of a layer, leaving out the children of board states where
+	 * the game is already over. The result is sorted, and each board
+	 * state appears once, by its canonical code.
+	 *
+	 * @param geometry tables for the geometry of the board
+	 * @param windowMasks bit sets of the windows
+	 * @param layer sorted codes of the board states with the given number of pieces
+	 * @param pieces number of pieces on each board state of the layer
+	 * @return the sorted codes of the next layer
+	 */
+	private static long[] nextLayer(TeamEurekaGeometry geometry, long[] windowMasks, long[] layer, int pieces) {
+		int numCells = geometry.getNumCells();
+		long cellMask = (1L << numCells) - 1;
+		long[] next = new long[Math.max(16, layer.length)];
+		int n = 0;
+		for (int i = 0; i < layer.length; i++) {
+			long pieces1 = layer[i] & cellMask;
+			long pieces2 = layer[i] >>> numCells;
+			// The player who made the last move is the only one who can have won
+			if (pieces > 0 && hasRow(windowMasks, pieces % 2 == 1 ? pieces1 : pieces2)) {
+				continue;
+			}
+			for (long word = playableCells(geometry, pieces1 | pieces2); word != 0; word &= word - 1) {
+				long bit = word & -word;
+				if (n == next.length) {
+					next = Arrays.copyOf(next, next.length * 2);
+				}
+				next[n++] = pieces % 2 == 0 ? canonicalCode(geometry, pieces1 | bit, pieces2) : canonicalCode(geometry, pieces1, pieces2 | bit);
+			}
+		}
+		Arrays.sort(next, 0, n);
+		int unique = 0;
+		for (int i = 0; i < n; i++) {
+			if (unique == 0 || next[i] != next[unique - 1]) {
+				next[unique++] = next[i];
+			}
+		}
+		return Arrays.copyOf(next, unique);
+	}
+
+	/**
+	 * This method works out the value of a board state for the player to
+	 * move, from the values of the next layer.
+	 *
+	 * @param geometry tables for the geometry of the board
+	 * @param windowMasks bit sets of the windows
+	 * @param code canonical code of the board state
+	 * @param pieces number of pieces on the board state
+	 * @param nextLayer sorted codes of the next layer, or null for a full board
+	 * @param nextValues values of the board states of the next layer
+	 * @return WIN, DRAW or LOSS for the player to move
+	 */
+	private static int solve(TeamEurekaGeometry geometry, long[] windowMasks, long code, int pieces, long[] nextLayer, byte[] nextValues) {
+		int numCells = geometry.getNumCells();
+		long pieces1 = code & ((1L << numCells) - 1);
+		long pieces2 = code >>> numCells;
+		if (pieces > 0 && hasRow(windowMasks, pieces % 2 == 1 ? pieces1 : pieces2)) {
+			return LOSS;
+		}
+		if (nextLayer == null) {
+			return DRAW;
+		}
+		int best = LOSS;
+		for (long word = playableCells(geometry, pieces1 | pieces2); word != 0 && best != WIN; word &= word - 1) {
+			long bit = word & -word;
+			long child = pieces % 2 == 0 ? canonicalCode(geometry, pieces1 | bit, pieces2) : canonicalCode(geometry, pieces1, pieces2 | bit);
+			int value = WIN - nextValues[Arrays.binarySearch(nextLayer, child)];
+			if (value > best) {
+				best = value;
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,463 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaThreatSearch class looks for wins that the alpha-beta
+ * search is too shallow to see: long sequences of threats, each of which
+ * leaves the opponent only one or a few ways to avoid losing. Only moves
+ * that create threats are tried for the attacker, and only the moves
+ * that could answer a threat are tried for the defender, so these
+ * sequences can be searched far deeper than the whole game tree.
+ *
+ * A four is a row of K cells with K-1 of the attacker's pieces and none
+ * of the defender's, where the last cell can be played right away, in
+ * the same sense as the non-quiescent rows of the evaluation function.
+ * After a four, the defender must play in the last cell, unless they can
+ * win first. A victory by continuous fours (VCF) is a sequence of fours
+ * ending in two fours at once, which cannot both be blocked. Since each
+ * reply of the defender is forced, a VCF is a proven win.
+ *
+ * A three is a move after which the attacker would have a VCF if the
+ * defender did nothing. A victory by continuous threats (VCT) also uses
+ * threes. The defender is allowed any move that could disturb the VCF:
+ * every cell of the rows that the VCF depends on, every move that makes
+ * a four of the defender's own, and, with gravity, the playable cell of
+ * every column the VCF uses. The attacker only wins if the search proves
+ * a win against each of these moves.
+ *
+ * Each row keeps a count of each player's pieces, updated with every
+ * move, so finding fours and threats does not require scanning the
+ * cells of the board. The search gives up, without claiming a win, once
+ * it has visited MAX_NODES board states or its timer runs out.
+ */
+public class TeamEurekaThreatSearch {
+	public static final int MAX_VCF_DEPTH = 20; // Most fours in one VCF
+	public static final int MAX_VCT_DEPTH = 3; // Most threes in one VCT
+	public static final int MAX_NODES = 200000; // Most board states visited by one call to findWin
+	public static final double TIME_SHARE = 0.1; // Share of the time limit given to the threat search
+	private TeamEurekaBitboard position; // Board state that moves are played on
+	private TeamEurekaTimer timer; // Time control for the threat search
+	private int height; // Number of rows
+	private int kLength; // Value of K
+	private boolean gravity; // Indicates if pieces drop to the lowest empty row
+	private int numWindows; // Number of K-length rows on the board
+	private int[] windowCells; // Cell indices of each row, K entries per row
+	private int[] cellWindowStart; // Start of each cell's entries in cellWindows
+	private int[] cellWindows; // Rows passing through each cell
+	private int[][] counts; // Number of pieces of each player in each row
+	private int[][] moveLists; // List of moves for each ply of the current path
+	private int[][] winLists; // List of winning cells for each ply of the current path
+	private int[] marks; // Stamp of the last list each cell was added to
+	private int stamp; // Stamp of the list being built
+	private int[] proofCells; // Cells used by the last VCF found
+	private byte[] proofPlayers; // Player who plays each of those cells
+	private int proofLength; // Number of cells used by the last VCF found
+	private byte[] proofOwner; // Player who plays each cell of the VCF, while defences are found
+	private int ply; // Distance from the root
+	private int nodes; // Number of board states visited
+	private boolean aborted; // Indicates if the search gave up
+	private int winningMove; // First move of the win found, or -1
+
+	public TeamEurekaThreatSearch(TeamEurekaBitboard position, TeamEurekaTimer timer) {
+		this.position = new TeamEurekaBitboard(position);
+		this.timer = timer;
+		TeamEurekaGeometry geometry = position.getGeometry();
+		height = position.getHeight();
+		kLength = position.getkLength();
+		gravity = position.gravityEnabled();
+		numWindows = geometry.getNumWindows();
+		windowCells = geometry.getWindowCells();
+		cellWindowStart = geometry.getCellWindowStart();
+		cellWindows = geometry.getCellWindows();
+		int numCells = geometry.getNumCells();
+		counts = new int[2][numWindows];
+		for (int w = 0; w < numWindows; w++) {
+			for (int m = 0; m < kLength; m++) {
+				byte piece = position.getSpace(windowCells[w * kLength + m]);
+				if (piece != 0) {
+					counts[piece - 1][w]++;
+				}
+			}
+		}
+		int maxPly = position.getSpacesLeft() + 1;
+		moveLists = new int[maxPly][numCells];
+		winLists = new int[maxPly][numCells];
+		marks = new int[numCells];
+		stamp = 0;
+		proofCells = new int[numCells];
+		proofPlayers = new byte[numCells];
+		proofOwner = new byte[numCells];
+	}
+
+	/**
+	 * This method searches for a forced win for the given player, who
+	 * must be the player to move. A VCF is looked for first, and then a
+	 * VCT with one more three at a time, so that the shortest kind of win
+	 * is found first.
+	 *
+	 * @param attacker player to move (1 or 2)
+	 * @return the cell index of the first move of a forced win, or -1 if
+	 * none was found
+	 */
+	public int findWin(int attacker) {
+		winningMove = -1;
+		nodes = 0;
+		aborted = false;
+		ply = 0;
+		for (int depth = 0; depth <= MAX_VCT_DEPTH && !aborted; depth++) {
+			if (vct(attacker, depth)) {
+				return winningMove;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * This method searches for a VCF for the attacker, who is to move.
+	 * If the defender has a four, the attacker must block it, so the
+	 * only move tried is the blocking move, and only if it makes a four
+	 * as well. If a VCF is found, the cells it uses are added to the
+	 * proof.
+	 *
+	 * @param attacker player to move (1 or 2)
+	 * @param depth most fours allowed
+	 * @return true if the attacker has a VCF
+	 */
+	private boolean vcf(int attacker, int depth) {
+		if (checkAbort()) {
+			return false;
+		}
+		int defender = 3 - attacker;
+		int[] wins = winLists[ply];
+		if (findWins(attacker, wins) > 0) {
+			if (ply == 0) {
+				winningMove = wins[0];
+			}
+			addProof(wins[0], attacker);
+			return true;
+		}
+		if (depth == 0) {
+			return false;
+		}
+		int[] moves = moveLists[ply];
+		int n = findWins(defender, moves);
+		if (n > 1) {
+			return false;
+		}
+		if (n == 0) {
+			n = findThreatMoves(attacker, kLength - 2, moves);
+		}
+		for (int i = 0; i < n; i++) {
+			int move = moves[i];
+			makeMove(move, attacker);
+			boolean win = false;
+			if (findWins(defender, winLists[ply]) == 0) {
+				int numWins = findWins(attacker, wins);
+				if (numWins >= 2) {
+					addProof(wins[0], attacker);
+					addProof(wins[1], attacker);
+					win = true;
+				}
+				else if (numWins == 1) {
+					int reply = wins[0];
+					makeMove(reply, defender);
+					win = vcf(attacker, depth - 1);
+					undoMove();
+					if (win) {
+						addProof(reply, defender);
+					}
+				}
+			}
+			undoMove();
+			if (win) {
+				if (ply == 0) {
+					winningMove = move;
+				}
+				addProof(move, attacker);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * This method searches for a VCT for the attacker, who is to move.
+	 * A VCF is tried first. Otherwise, every move that makes a four or
+	 * a three is tried. After a four, the defender's only reply is
+	 * searched. After a three, the defender's moves that could disturb
+	 * the VCF the three threatens are searched, and the three wins if
+	 * the attacker has a VCT after each of them.
+	 *
+	 * @param attacker player to move (1 or 2)
+	 * @param depth most threes allowed
+	 * @return true if the attacker has a VCT
+	 */
+	private boolean vct(int attacker, int depth) {
+		proofLength = 0;
+		if (vcf(attacker, MAX_VCF_DEPTH)) {
+			return true;
+		}
+		if (depth == 0 || aborted) {
+			return false;
+		}
+		int defender = 3 - attacker;
+		int[] moves = moveLists[ply];
+		int n = findWins(defender, moves);
+		if (n > 1) {
+			return false;
+		}
+		if (n == 0) {
+			n = findThreatMoves(attacker, Math.max(1, kLength - 3), moves);
+		}
+		for (int i = 0; i < n; i++) {
+			int move = moves[i];
+			makeMove(move, attacker);
+			boolean win = false;
+			int[] wins = winLists[ply];
+			if (findWins(defender, wins) == 0) {
+				int numWins = findWins(attacker, wins);
+				if (numWins >= 2) {
+					win = true;
+				}
+				else if (numWins == 1) {
+					makeMove(wins[0], defender);
+					win = vct(attacker, depth);
+					undoMove();
+				}
+				else {
+					win = threeWins(attacker, depth);
+				}
+			}
+			undoMove();
+			if (win) {
+				if (ply == 0) {
+					winningMove = move;
+				}
+				return true;
+			}
+			if (aborted) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * This method checks if the attacker's last move is a three that
+	 * wins. The defender is to move. First, the defender passes, and the
+	 * attacker must then have a VCF. Then, every defence against that
+	 * VCF is tried, and the attacker must have a VCT after each of them.
+	 *
+	 * @param attacker player who made the last move (1 or 2)
+	 * @param depth most threes allowed, including the last move
+	 * @return true if the three wins
+	 */
+	private boolean threeWins(int attacker, int depth) {
+		int defender = 3 - attacker;
+		proofLength = 0;
+		if (!vcf(attacker, MAX_VCF_DEPTH)) {
+			return false;
+		}
+		int[] defences = moveLists[ply];
+		int n = findDefences(attacker, defences);
+		for (int i = 0; i < n; i++) {
+			makeMove(defences[i], defender);
+			boolean win = vct(attacker, depth - 1);
+			undoMove();
+			if (!win) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * This method finds the defender's moves that could disturb the VCF
+	 * in the proof, which the attacker threatens after passing. These
+	 * are the cells of each row that a four of the VCF could be made in,
+	 * the cells of each row in which the defender's forced replies could
+	 * give the defender a four, every cell that makes a four for the
+	 * defender right away, and with gravity, every cell that changes
+	 * which cells of the VCF can be played.
+	 *
+	 * @param attacker player who threatens the VCF (1 or 2)
+	 * @param cells array to store the moves in
+	 * @return the number of moves
+	 */
+	private int findDefences(int attacker, int[] cells) {
+		int defender = 3 - attacker;
+		int[] attackerCounts = counts[attacker - 1];
+		int[] defenderCounts = counts[defender - 1];
+		int n = 0;
+		stamp++;
+		for (int i = 0; i < proofLength; i++) {
+			proofOwner[proofCells[i]] = proofPlayers[i];
+		}
+		for (int i = 0; i < proofLength; i++) {
+			int cell = proofCells[i];
+			byte owner = proofPlayers[i];
+			for (int x = cellWindowStart[cell]; x < cellWindowStart[cell + 1]; x++) {
+				int w = cellWindows[x];
+				int extra = 0; // Cells of the VCF played by the same player in the row
+				for (int m = 0; m < kLength; m++) {
+					if (proofOwner[windowCells[w * kLength + m]] == owner) {
+						extra++;
+					}
+				}
+				boolean relevant;
+				if (owner == attacker) {
+					relevant = defenderCounts[w] == 0 && attackerCounts[w] + extra >= kLength - 1;
+				}
+				else {
+					relevant = attackerCounts[w] == 0 && defenderCounts[w] + extra + 1 >= kLength - 1;
+				}
+				if (relevant) {
+					for (int m = 0; m < kLength; m++) {
+						n = addCell(windowCells[w * kLength + m], cells, n);
+					}
+				}
+			}
+			if (gravity) {
+				n = addCell(position.getPlayableCell(cell / height, cell % height), cells, n);
+			}
+		}
+		for (int i = 0; i < proofLength; i++) {
+			proofOwner[proofCells[i]] = 0;
+		}
+		for (int w = 0; w < numWindows; w++) {
+			if (attackerCounts[w] == 0 && defenderCounts[w] >= kLength - 2) {
+				for (int m = 0; m < kLength; m++) {
+					int cell = windowCells[w * kLength + m];
+					n = addCell(cell, cells, n);
+					if (gravity && position.isEmpty(cell) && cell % height > 0) {
+						// Filling the cell below makes the defender's cell playable
+						n = addCell(cell - 1, cells, n);
+					}
+				}
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * This method finds every playable cell that would complete a row of
+	 * K pieces for the given player.
+	 *
+	 * @param player player to find winning cells for (1 or 2)
+	 * @param cells array to store the cells in
+	 * @return the number of cells
+	 */
+	private int findWins(int player, int[] cells) {
+		int[] own = counts[player - 1];
+		int[] other = counts[2 - player];
+		int n = 0;
+		stamp++;
+		for (int w = 0; w < numWindows; w++) {
+			if (own[w] == kLength - 1 && other[w] == 0) {
+				for (int m = 0; m < kLength; m++) {
+					n = addCell(windowCells[w * kLength + m], cells, n);
+				}
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * This method finds every playable cell in a row that has at least
+	 * the given number of the player's pieces, fewer than K-1, and none
+	 * of the opponent's. Playing in such a cell makes a four or a three.
+	 *
+	 * @param player player to find moves for (1 or 2)
+	 * @param minPieces fewest pieces the row must have
+	 * @param cells array to store the cells in
+	 * @return the number of cells
+	 */
+	private int findThreatMoves(int player, int minPieces, int[] cells) {
+		int[] own = counts[player - 1];
+		int[] other = counts[2 - player];
+		int n = 0;
+		stamp++;
+		for (int w = 0; w < numWindows; w++) {
+			if (own[w] >= minPieces && own[w] < kLength - 1 && other[w] == 0) {
+				for (int m = 0; m < kLength; m++) {
+					n = addCell(windowCells[w * kLength + m], cells, n);
+				}
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * This method adds a cell to the list being built, if it can be
+	 * played and is not already in the list.
+	 *
+	 * @param cell cell index
+	 * @param cells list being built
+	 * @param n number of cells in the list
+	 * @return the new number of cells in the list
+	 */
+	private int addCell(int cell, int[] cells, int n) {
+		if (marks[cell] != stamp && position.isEmpty(cell)
+				&& (!gravity || cell % height == 0 || !position.isEmpty(cell - 1))) {
+			marks[cell] = stamp;
+			cells[n++] = cell;
+		}
+		return n;
+	}
+
+	private void addProof(int cell, int player) {
+		proofCells[proofLength] = cell;
+		proofPlayers[proofLength++] = (byte) player;
+	}
+
+	/**
+	 * This method counts a visited board state, and decides if the
+	 * search should give up.
+	 *
+	 * @return true if the search gave up
+	 */
+	private boolean checkAbort() {
+		if (!aborted && (++nodes > MAX_NODES
+				|| ((nodes & (TeamEurekaTimer.CHECK_INTERVAL - 1)) == 0 && timer.poll()) || timer.isStopped())) {
+			aborted = true;
+		}
+		return aborted;
+	}
+
+	private void makeMove(int cell, int player) {
+		position.makeMove(cell, (byte) player);
+		for (int x = cellWindowStart[cell]; x < cellWindowStart[cell + 1]; x++) {
+			counts[player - 1][cellWindows[x]]++;
+		}
+		ply++;
+	}
+
+	private void undoMove() {
+		int cell = position.getLastMove();
+		int player = position.getSpace(cell);
+		for (int x = cellWindowStart[cell]; x < cellWindowStart[cell + 1]; x++) {
+			counts[player - 1][cellWindows[x]]--;
+		}
+		position.undoMove();
+		ply--;
+	}
+}
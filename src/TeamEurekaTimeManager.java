@@ -0,0 +1,221 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaTimeManager class decides how much of the time limit is
+ * spent on each move. The TeamEurekaTimer only enforces the hard limit;
+ * this class sets a softer target below it, and decides before each new
+ * depth limit whether the search should keep going.
+ *
+ * The target depends on the phase of the game. Near the start of the
+ * game, few moves matter much and the search gets a small share of the
+ * time, and near the end, the game tree is small enough that deeper
+ * searches change little. Most of the time goes to the middlegame. The
+ * target then grows while the best move keeps changing, or the value
+ * of the board state swings between depth limits, and shrinks once the
+ * best move has stayed the same for several depth limits.
+ *
+ * A new depth limit is only started if it is expected to finish in
+ * time. Its time is predicted from the time of the last depth limit,
+ * multiplied by the effective branching factor, which is the ratio of
+ * the times of the last two depth limits. The first depth limit is
+ * always started, so that the move played has been searched.
+ *
+ * The target is measured from the time startMove is called, so time
+ * spent on the move before the search, such as by the endgame solver,
+ * the proof-number search or the threat search, only counts against
+ * the hard limit. Each of those stages gets its share of the time limit
+ * from getStageTime, but never the last SEARCH_RESERVE of it, which is
+ * always left for the search, however long the stages before it ran.
+ *
+ * When the game does not give a time limit, each move is given
+ * MOVE_TIME, plus the time saved on earlier moves, so that time saved
+ * in easy positions can be spent on harder ones.
+ */
+public class TeamEurekaTimeManager {
+	public static final int MOVE_TIME = 5000; // Time for a move when the game gives no time limit
+	public static final double OPENING_SHARE = 0.25; // Share of the time limit targeted in the opening
+	public static final double MIDDLEGAME_SHARE = 0.6; // Share of the time limit targeted in the middlegame
+	public static final double ENDGAME_SHARE = 0.4; // Share of the time limit targeted in the endgame
+	public static final double OPENING_END = 0.85; // Fraction of empty cells at which the opening ends
+	public static final double ENDGAME_START = 0.3; // Fraction of empty cells at which the endgame starts
+	public static final int STABLE_DEPTHS = 3; // Number of depth limits with the same best move to be stable
+	public static final int SCORE_SWING = 100; // Change in value between depth limits that counts as a swing
+	public static final double MIN_BRANCHING = 1.5; // Lowest effective branching factor used for predictions
+	public static final double MAX_BRANCHING = 10; // Highest effective branching factor used for predictions
+	public static final double DEFAULT_BRANCHING = 4; // Effective branching factor used before two depth limits finish
+	public static final double SEARCH_RESERVE = 0.4; // Share of the time limit kept for the search by the stages before it
+	private TeamEurekaTimer timer; // Timer of the current move
+	private double hardLimit; // Time at which the timer stops the search, in milliseconds
+	private double baseTarget; // Target time for the phase of the game, in milliseconds
+	private double target; // Target time after adjusting for stability, in milliseconds
+	private long searchStart; // Elapsed time when the search started
+	private long iterationStart; // Elapsed time when the current depth limit started
+	private long lastIterationTime; // Time of the last completed depth limit
+	private long previousIterationTime; // Time of the depth limit before the last one
+	private int bestMove; // Best move from the last completed depth limit, or -1
+	private int bestScore; // Value of the best move from the last completed depth limit
+	private int stableDepths; // Number of depth limits in a row with the same best move
+	private int savedTime; // Time saved on earlier moves without a time limit
+
+	public TeamEurekaTimeManager() {
+		savedTime = 0;
+	}
+
+	/**
+	 * This method returns the time limit for a move when the game does
+	 * not give one: MOVE_TIME plus the time saved on earlier moves, up to
+	 * twice MOVE_TIME.
+	 *
+	 * @return time limit in milliseconds
+	 */
+	public int getFreeMoveTime() {
+		return MOVE_TIME + savedTime;
+	}
+
+	/**
+	 * This method records how much of MOVE_TIME the last move without a
+	 * time limit saved or overspent, so it can be given to later moves.
+	 *
+	 * @param moveTime time used by the move, in milliseconds
+	 */
+	public void endFreeMove(long moveTime) {
+		savedTime = (int) Math.max(0, Math.min(MOVE_TIME, savedTime + MOVE_TIME - moveTime));
+	}
+
+	/**
+	 * This method returns the time for a stage run before the search,
+	 * such as the endgame solver: the given share of the time limit, but
+	 * no more than what is left on the timer of the move once
+	 * SEARCH_RESERVE of the time limit is kept for the search.
+	 *
+	 * @param timer timer of the move
+	 * @param deadline time limit in milliseconds
+	 * @param share share of the time limit for the stage
+	 * @return time for the stage in milliseconds, or 0 if there is none
+	 */
+	public static int getStageTime(TeamEurekaTimer timer, int deadline, double share) {
+		return (int) Math.max(0, Math.min(deadline * share, timer.getTimeLeft() - deadline * SEARCH_RESERVE));
+	}
+
+	/**
+	 * This method prepares the time manager for a new move, and sets the
+	 * target time from the phase of the game. It is called just before
+	 * the search starts, and the target is counted from then.
+	 *
+	 * @param timer timer of the move
+	 * @param deadline time limit in milliseconds
+	 * @param spacesLeft number of empty cells on the board
+	 * @param numCells number of cells on the board
+	 */
+	public void startMove(TeamEurekaTimer timer, int deadline, int spacesLeft, int numCells) {
+		this.timer = timer;
+		hardLimit = deadline * TeamEurekaTimer.TIME_FRACTION;
+		double emptyFraction = (double) spacesLeft / numCells;
+		if (emptyFraction > OPENING_END) {
+			baseTarget = hardLimit * OPENING_SHARE;
+		}
+		else if (emptyFraction > ENDGAME_START) {
+			baseTarget = hardLimit * MIDDLEGAME_SHARE;
+		}
+		else {
+			baseTarget = hardLimit * ENDGAME_SHARE;
+		}
+		searchStart = timer.getElapsedTime();
+		target = Math.min(hardLimit, searchStart + baseTarget);
+		iterationStart = searchStart;
+		lastIterationTime = 0;
+		previousIterationTime = 0;
+		bestMove = -1;
+		bestScore = 0;
+		stableDepths = 0;
+	}
+
+	/**
+	 * This method records the result of a completed depth limit, and
+	 * adjusts the target time. The target is raised by half if the best
+	 * move changed, lowered by a quarter if the best move has been stable
+	 * for STABLE_DEPTHS depth limits, and raised by a further quarter if
+	 * the value swung by SCORE_SWING or more.
+	 *
+	 * @param move best move from the depth limit
+	 * @param score value of the best move
+	 */
+	public void recordIteration(int move, int score) {
+		long now = timer.getElapsedTime();
+		previousIterationTime = lastIterationTime;
+		lastIterationTime = now - iterationStart;
+		double factor = 1;
+		if (bestMove != -1 && move != bestMove) {
+			stableDepths = 0;
+			factor = 1.5;
+		}
+		else {
+			stableDepths++;
+			if (stableDepths >= STABLE_DEPTHS) {
+				factor = 0.75;
+			}
+		}
+		if (bestMove != -1 && Math.abs((long) score - bestScore) >= SCORE_SWING) {
+			factor *= 1.25;
+		}
+		target = Math.min(hardLimit, searchStart + baseTarget * factor);
+		bestMove = move;
+		bestScore = score;
+	}
+
+	/**
+	 * This method decides whether the search should start the next depth
+	 * limit. The first depth limit is started as long as the timer has
+	 * not stopped. Later ones are not if the value of the best move shows
+	 * that either player can force a win, if the target time has been
+	 * used, or if the next depth limit is not expected to finish before
+	 * the target time runs out by more than half, or before the hard
+	 * limit.
+	 *
+	 * @return true if the next depth limit should be searched
+	 */
+	public boolean canStartIteration() {
+		if (timer.poll()) {
+			return false;
+		}
+		if (bestMove == -1) {
+			// No depth limit completed yet; the move must be searched at least once
+			iterationStart = timer.getElapsedTime();
+			return true;
+		}
+		if (bestScore == Integer.MAX_VALUE || bestScore == Integer.MIN_VALUE) {
+			return false;
+		}
+		long elapsed = timer.getElapsedTime();
+		iterationStart = elapsed;
+		if (elapsed >= target) {
+			return false;
+		}
+		double branching = DEFAULT_BRANCHING;
+		if (previousIterationTime > 0) {
+			branching = Math.max(MIN_BRANCHING, Math.min(MAX_BRANCHING, (double) lastIterationTime / previousIterationTime));
+		}
+		double predicted = elapsed + lastIterationTime * branching;
+		return predicted <= Math.min(hardLimit, searchStart + (target - searchStart) * 1.5);
+	}
+}
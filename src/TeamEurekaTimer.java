@@ -0,0 +1,109 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaTimer class keeps track of the time left for a move. The
+ * deadline is measured with System.nanoTime, which cannot jump like the
+ * wall clock. Reading the clock is much slower than visiting a node, so
+ * searches do not read it at every node. Instead, each search counts its
+ * own nodes and calls poll once every CHECK_INTERVAL nodes, which reads
+ * the clock and sets the stopped flag once the deadline has passed.
+ * Every node only needs to read the stopped flag.
+ *
+ * The stopped flag is shared by every thread searching the same move, and
+ * can also be set with stop, so the main search can stop its helpers as
+ * soon as it has chosen a move. Since the search stops within a few
+ * thousand nodes of the deadline, only a small safety margin is needed.
+ */
+public class TeamEurekaTimer {
+	public static final int CHECK_INTERVAL = 1024; // Number of nodes between clock reads (power of two)
+	public static final double TIME_FRACTION = 0.98; // Fraction of the time limit used for searching
+	private long startTime; // Start time in nanoseconds
+	private long stopTime; // Time at which the search must stop, in nanoseconds
+	private volatile boolean stopped; // Indicates if the search must stop
+	private int calls; // Number of calls to hasTimeLeft since the last clock read
+
+	public TeamEurekaTimer(int deadline) {
+		startTime = System.nanoTime();
+		stopTime = startTime + (long) (deadline * TIME_FRACTION * 1000000);
+		stopped = false;
+		calls = 0;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * This method asks every search using this timer to stop as soon as
+	 * possible. It can be called from any thread.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	/**
+	 * This method reads the clock, and sets the stopped flag if the
+	 * deadline has passed.
+	 *
+	 * @return true if the search must stop
+	 */
+	public boolean poll() {
+		if (!stopped && System.nanoTime() - stopTime >= 0) {
+			stopped = true;
+		}
+		return stopped;
+	}
+
+	/**
+	 * This method counts a call, and reads the clock once every
+	 * CHECK_INTERVAL calls. It is meant for a single thread that does
+	 * not count its own nodes, such as the game tree search.
+	 *
+	 * @return true if there is still time left
+	 */
+	public boolean hasTimeLeft() {
+		if ((++calls & (CHECK_INTERVAL - 1)) == 0) {
+			poll();
+		}
+		return !stopped;
+	}
+
+	/**
+	 * This method returns the time left before the timer stops.
+	 *
+	 * @return time left in milliseconds, or a negative number if the
+	 *         deadline has passed
+	 */
+	public long getTimeLeft() {
+		return (stopTime - System.nanoTime()) / 1000000;
+	}
+
+	/**
+	 * This method returns the time elapsed since the timer was created.
+	 *
+	 * @return elapsed time in milliseconds
+	 */
+	public long getElapsedTime() {
+		return (System.nanoTime() - startTime) / 1000000;
+	}
+}
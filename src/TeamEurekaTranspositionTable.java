@@ -0,0 +1,159 @@
+/**
+ *   Connect-K AI - The algorithm for an AI player in the game Connect-K
+ *   Copyright (C) 2015  Arash Nabili, Navninder Kaur Yadev
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * ConnectK AI
+ * Designed by Team Eureka:
+ * 	Navninder Kaur Yadev
+ * 	Arash Nabili
+ * CS 171 Winter 2015
+ *
+ * The TeamEurekaTranspositionTable class remembers the results of
+ * searching board states, so that a board state reached again through
+ * a different order of moves does not have to be searched again. Board
+ * states are identified by their Zobrist keys, which TeamEurekaBitboard
+ * updates with every move.
+ *
+ * The table has a fixed number of buckets, each with two entries. The
+ * first entry of a bucket is only replaced by a search of equal or
+ * greater depth, and the second entry is always replaced. Each entry
+ * stores the depth of the search, the type of bound the value is, the
+ * value, and the best move found. Entries are packed into two arrays
+ * of longs, so the table does not create any objects once allocated.
+ *
+ * The table is kept from one move to the next, since the board states
+ * searched for one move are mostly searched again for the next. Each
+ * entry also stores the generation it was written in, and newSearch
+ * starts a new generation for every move. Entries from older searches
+ * can be replaced by any new entry, so that deep results of searches
+ * that are no longer relevant do not fill up the table.
+ *
+ * The table is shared by all search threads without locking. Each key
+ * is stored XORed with its entry, so if two threads write the same slot
+ * at once and the key and entry of different writes get mixed, the slot
+ * no longer matches either key and is treated as empty.
+ */
+import java.util.Arrays;
+
+public class TeamEurekaTranspositionTable {
+	public static final int UPPER = 1; // Value is at most the stored value
+	public static final int LOWER = 2; // Value is at least the stored value
+	public static final int EXACT = 3; // Value is exactly the stored value
+	public static final int GENERATIONS = 16; // Number of different generations that entries can have
+	private long[] keys; // Zobrist key of each entry, XORed with the entry
+	private long[] data; // Packed depth, bound, value and best move of each entry
+	private int mask; // Number of buckets minus one
+	private int generation; // Generation of the current search
+
+	/**
+	 * This constructor creates a table that fits in about the given
+	 * number of megabytes. The number of buckets is rounded down to a
+	 * power of two.
+	 *
+	 * @param megabytes size of the table in megabytes
+	 */
+	public TeamEurekaTranspositionTable(int megabytes) {
+		long buckets = Math.max(1, ((long) megabytes << 20) / 32);
+		int size = Integer.highestOneBit((int) Math.min(buckets, 1 << 28));
+		keys = new long[size * 2];
+		data = new long[size * 2];
+		mask = size - 1;
+		generation = 0;
+	}
+
+	/**
+	 * This method starts a new generation of entries, before searching
+	 * for a new move. Entries from earlier generations can still be
+	 * found, but no longer keep their slots against new entries.
+	 */
+	public void newSearch() {
+		generation = (generation + 1) % GENERATIONS;
+	}
+
+	/**
+	 * This method removes every entry from the table.
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(data, 0);
+	}
+
+	/**
+	 * This method looks up the entry for the given board state.
+	 *
+	 * @param key Zobrist key of the board state
+	 * @return the packed entry, or 0 if the board state is not in the table
+	 */
+	public long probe(long key) {
+		int index = ((int) key & mask) << 1;
+		long entry = data[index];
+		if ((keys[index] ^ entry) == key && entry != 0) {
+			return entry;
+		}
+		entry = data[index + 1];
+		if ((keys[index + 1] ^ entry) == key && entry != 0) {
+			return entry;
+		}
+		return 0;
+	}
+
+	/**
+	 * This method stores the result of searching a board state. The
+	 * depth-preferred entry of the bucket is used if it holds the same
+	 * board state, an entry from an earlier generation, or a search that
+	 * was not deeper; otherwise, the always-replace entry is used.
+	 *
+	 * @param key Zobrist key of the board state
+	 * @param depth depth of the search
+	 * @param bound type of bound the value is (UPPER, LOWER or EXACT)
+	 * @param score value of the board state
+	 * @param move cell index of the best move, or -1 if there is none
+	 */
+	public void store(long key, int depth, int bound, int score, int move) {
+		int index = ((int) key & mask) << 1;
+		long entry = (score & 0xFFFFFFFFL) | ((long) (move + 1) << 32) | ((long) depth << 48)
+				| ((long) generation << 58) | ((long) bound << 62);
+		long old = data[index];
+		if ((keys[index] ^ old) == key || old == 0 || getGeneration(old) != generation || depth >= getDepth(old)) {
+			keys[index] = key ^ entry;
+			data[index] = entry;
+		}
+		else {
+			keys[index + 1] = key ^ entry;
+			data[index + 1] = entry;
+		}
+	}
+
+	public static int getScore(long entry) {
+		return (int) entry;
+	}
+
+	public static int getMove(long entry) {
+		return (int) ((entry >>> 32) & 0xFFFF) - 1;
+	}
+
+	public static int getDepth(long entry) {
+		return (int) ((entry >>> 48) & 0x3FF);
+	}
+
+	public static int getGeneration(long entry) {
+		return (int) ((entry >>> 58) & 0xF);
+	}
+
+	public static int getBound(long entry) {
+		return (int) ((entry >>> 62) & 0x3);
+	}
+}